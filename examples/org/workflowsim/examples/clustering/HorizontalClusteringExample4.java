@@ -0,0 +1,151 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.clustering;
+
+import java.io.File;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowParser;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.clustering.MakespanEstimator;
+import org.workflowsim.examples.WorkflowSimBasicExample1;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This HorizontalClusteringExample4 validates the MakespanEstimator against the
+ * simulation. For each clusters.num it prints the estimated makespan and the
+ * simulated makespan of horizontal clustering. At last it runs the AUTO
+ * clustering method which picks the clusters.num with the minimal estimated
+ * makespan.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class HorizontalClusteringExample4 extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this example
+     * This example has only one datacenter and one storage
+     */
+    public static void main(String[] args) {
+
+        try {
+            int vmNum = 20;//number of vms;
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "/Users/weiweich/NetBeansProjects/WorkflowSim-1.0/config/dax/Montage_100.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+            int[] candidates = {1, 2, 5, 10, 20, 50};
+            double[] estimated = new double[candidates.length];
+            double[] simulated = new double[candidates.length];
+            for (int i = 0; i < candidates.length; i++) {
+                ClusteringParameters cp = new ClusteringParameters(candidates[i], 0,
+                        ClusteringParameters.ClusteringMethod.HORIZONTAL, null);
+                estimated[i] = estimate(daxPath, vmNum, cp);
+                simulated[i] = simulate(daxPath, vmNum, cp);
+            }
+            Log.printLine("clusters.num\testimated\tsimulated");
+            for (int i = 0; i < candidates.length; i++) {
+                Log.printLine(candidates[i] + "\t" + estimated[i] + "\t" + simulated[i]);
+            }
+            /**
+             * clusters.num is the upper bound of the search in AUTO. 0 means
+             * the width of the widest level.
+             */
+            ClusteringParameters cp = new ClusteringParameters(0, 0,
+                    ClusteringParameters.ClusteringMethod.AUTO, null);
+            Log.printLine("AUTO\t\t" + simulate(daxPath, vmNum, cp));
+        } catch (Exception e) {
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * The overheads used in this example
+     */
+    private static OverheadParameters getOverheadParameters() {
+        Map<Integer, DistributionGenerator> queueDelay = new HashMap<>();
+        Map<Integer, DistributionGenerator> postDelay = new HashMap<>();
+        Map<Integer, DistributionGenerator> clusteringDelay = new HashMap<>();
+        queueDelay.put(0, new DistributionGenerator(DistributionGenerator.DistributionFamily.WEIBULL, 20.0, 1.0));
+        postDelay.put(0, new DistributionGenerator(DistributionGenerator.DistributionFamily.WEIBULL, 10.0, 1.0));
+        clusteringDelay.put(0, new DistributionGenerator(DistributionGenerator.DistributionFamily.WEIBULL, 1.0, 1.0));
+        return new OverheadParameters(0, null, queueDelay, postDelay, clusteringDelay, 0);
+    }
+
+    /**
+     * Initialize static parameters
+     */
+    private static void init(String daxPath, int vmNum, ClusteringParameters cp) {
+        Parameters.init(vmNum, daxPath, null,
+                null, getOverheadParameters(), cp, Parameters.SchedulingAlgorithm.MCT,
+                Parameters.PlanningAlgorithm.INVALID, null, 0);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+    }
+
+    /**
+     * Estimates the makespan without simulation
+     */
+    private static double estimate(String daxPath, int vmNum, ClusteringParameters cp) {
+        init(daxPath, vmNum, cp);
+        WorkflowParser parser = new WorkflowParser(0);
+        parser.parse();
+        List<CondorVM> vmlist = createVM(0, vmNum);
+        MakespanEstimator estimator = new MakespanEstimator(parser.getTaskList(), vmlist,
+                Parameters.getOverheadParams());
+        return estimator.estimate(cp.getClustersNum());
+    }
+
+    /**
+     * Runs the simulation and gets the makespan
+     */
+    private static double simulate(String daxPath, int vmNum, ClusteringParameters cp) throws Exception {
+        init(daxPath, vmNum, cp);
+        CloudSim.init(1, Calendar.getInstance(), false);
+        WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+        wfEngine.submitVmList(vmlist0, 0);
+        wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+        CloudSim.startSimulation();
+        List<Job> outputList0 = wfEngine.getJobsReceivedList();
+        CloudSim.stopSimulation();
+        double makespan = 0.0;
+        for (Job job : outputList0) {
+            makespan = Math.max(makespan, job.getFinishTime());
+        }
+        return makespan;
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.failure;
+
+import java.io.File;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.failure.FailureMonitor;
+import org.workflowsim.failure.FailureParameters;
+import org.workflowsim.failure.VmFailureInjector;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This VmFailureExample1 uses VmFailureInjector to fail and recover vms during
+ * the simulation. The jobs running on a failed vm are aborted and retried from
+ * the last checkpoint of their tasks.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class VmFailureExample1 extends FaultTolerantSchedulingExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this example This example has only one datacenter
+     * and one storage
+     */
+    public static void main(String[] args) {
+
+        try {
+            int vmNum = 20;//number of vms;
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "/Users/weiweich/NetBeansProjects/WorkflowSim-1.0/config/dax/Montage_100.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+            /**
+             * FAILURE_VM_EVENT fails the vms at simulation events instead of
+             * failing the tasks when they return.
+             */
+            FailureParameters.FTCMonitor ftc_monitor = FailureParameters.FTCMonitor.MONITOR_VM;
+            FailureParameters.FTCFailure ftc_failure = FailureParameters.FTCFailure.FAILURE_VM_EVENT;
+            FailureParameters.FTCluteringAlgorithm ftc_method = FailureParameters.FTCluteringAlgorithm.FTCLUSTERING_NOOP;
+            /**
+             * The time between two failures of each vm, 500 seconds on average
+             */
+            DistributionGenerator[][] failureGenerators = new DistributionGenerator[vmNum][1];
+            for (int vmId = 0; vmId < vmNum; vmId++) {
+                failureGenerators[vmId][0] = new DistributionGenerator(DistributionGenerator.DistributionFamily.WEIBULL,
+                        500, 1.0);
+            }
+            /**
+             * The downtime of a failed vm, 20 seconds on average
+             */
+            FailureParameters.setRecoveryGenerator(new DistributionGenerator(DistributionGenerator.DistributionFamily.WEIBULL,
+                    20, 1.0));
+
+            /**
+             * Tasks checkpoint at the optimal interval for the failure rate
+             * monitored so far, a checkpoint takes 1 second. A failed task
+             * only reruns the work after its last checkpoint.
+             */
+            FailureParameters.initCheckpoint(FailureParameters.FTCCheckpoint.CHECKPOINT_OPTIMAL, 0, 1.0);
+
+            Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+            Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+            ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+
+            /**
+             * No overheads
+             */
+            OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+
+            /**
+             * No Clustering
+             */
+            ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+            ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+            /**
+             * Initialize static parameters
+             */
+            FailureParameters.init(ftc_method, ftc_monitor, ftc_failure, failureGenerators);
+            Parameters.init(vmNum, daxPath, null,
+                    null, op, cp, sch_method, pln_method,
+                    null, 0);
+            ReplicaCatalog.init(file_system);
+
+            FailureMonitor.init();
+
+            // before creating any entities.
+            int num_user = 1;   // number of grid users
+            Calendar calendar = Calendar.getInstance();
+            boolean trace_flag = false;  // mean trace events
+
+            // Initialize the CloudSim library
+            CloudSim.init(num_user, calendar, trace_flag);
+
+            WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+
+            /**
+             * Create a WorkflowPlanner with one schedulers.
+             */
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            /**
+             * Create a WorkflowEngine.
+             */
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            /**
+             * Create a list of VMs.The userId of a vm is basically the id of
+             * the scheduler that controls this vm.
+             */
+            List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+
+            /**
+             * Submits this list of vms to this WorkflowEngine.
+             */
+            wfEngine.submitVmList(vmlist0, 0);
+
+            /**
+             * Binds the data centers with the scheduler.
+             */
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+            /**
+             * Fails and recovers the vms of this datacenter.
+             */
+            VmFailureInjector injector = new VmFailureInjector("injector_0", datacenter0, vmlist0);
+
+            CloudSim.startSimulation();
+            List<Job> outputList0 = wfEngine.getJobsReceivedList();
+            CloudSim.stopSimulation();
+            printJobList(outputList0);
+        } catch (Exception e) {
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
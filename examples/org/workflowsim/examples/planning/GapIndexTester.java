@@ -0,0 +1,91 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.planning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.planning.GapIndex;
+
+/**
+ * Checks that every start returned by GapIndex.findStart can be reserved with
+ * GapIndex.occupy, including gaps whose length and end disagree in floating
+ * point, and that reserved slots do not overlap.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class GapIndexTester {
+
+    /**
+     * Runs the checks, an IllegalStateException is thrown if one fails
+     */
+    public static void main(String[] args) {
+        /**
+         * The gap [2.423296893709903E-4, 496.8953539757858) is long enough for
+         * the task by its length, but the start plus the length of the task is
+         * one ulp after the end of the gap.
+         */
+        GapIndex gaps = new GapIndex();
+        gaps.occupy(0.0, 2.423296893709903E-4);
+        gaps.occupy(496.8953539757858, 10.0);
+        double length = 496.89511164609644;
+        double start = gaps.findStart(0.0, length);
+        if (start != 2.423296893709903E-4) {
+            throw new IllegalStateException("The task should start in the first gap, not at " + start);
+        }
+        gaps.occupy(start, length);
+
+        /**
+         * Random tasks with random ready times, as a list scheduler reserves
+         * them.
+         */
+        Random random = new Random(0);
+        for (int run = 0; run < 100; run++) {
+            gaps = new GapIndex();
+            List<double[]> slots = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                double readyTime = random.nextDouble() * 1000.0;
+                length = random.nextDouble() * 50.0;
+                start = gaps.findStart(readyTime, length);
+                if (start < readyTime) {
+                    throw new IllegalStateException("The task starts at " + start + " before it is ready at " + readyTime);
+                }
+                gaps.occupy(start, length);
+                slots.add(new double[]{start, start + length});
+            }
+            checkOverlap(slots);
+        }
+        Log.printLine("GapIndexTester passed");
+    }
+
+    /**
+     * Checks that no two slots overlap by more than the rounding of their
+     * ends
+     */
+    private static void checkOverlap(List<double[]> slots) {
+        for (int i = 0; i < slots.size(); i++) {
+            for (int j = i + 1; j < slots.size(); j++) {
+                double[] a = slots.get(i);
+                double[] b = slots.get(j);
+                if (a[0] < b[1] - 1.0e-6 && b[0] < a[1] - 1.0e-6) {
+                    throw new IllegalStateException("The slots [" + a[0] + ", " + a[1] + ") and ["
+                            + b[0] + ", " + b[1] + ") overlap");
+                }
+            }
+        }
+    }
+}
@@ -51,8 +51,8 @@ public class Cloudlet {
 	/** The cloudlet ID. */
 	private final int cloudletId;
 
-	/** The status of this Cloudlet. */
-	private int status;
+	/** The status of this Cloudlet, one of the status constants below. */
+	private byte status;
 
 	/** The format of decimal numbers. */
 	private DecimalFormat num;
@@ -73,17 +73,17 @@ public class Cloudlet {
 	/** The records the transaction history for this Cloudlet. */
 	private final boolean record;
 
-	/** The newline. */
-	private String newline;
-
 	/** The history. */
 	private StringBuffer history;
 
-	/** The res list. */
-	private final List<Resource> resList;
+	/** The latest resource that executes this Cloudlet, <tt>null</tt> if none. */
+	private Resource resource;
 
-	/** The index. */
-	private int index;
+	/**
+	 * All the resources that have executed this Cloudlet, <tt>null</tt> until this Cloudlet moves to
+	 * a second resource.
+	 */
+	private List<Resource> resList;
 
 	/** The class type of Cloudlet for resource scheduling. */
 	private int classType;
@@ -192,8 +192,6 @@ public class Cloudlet {
 		vmId = -1;
 		accumulatedBwCost = 0.0;
 		costPerBw = 0.0;
-
-		requiredFiles = new LinkedList<String>();
 	}
 
 	/**
@@ -343,18 +341,16 @@ public class Cloudlet {
 		this.cloudletOutputSize = Math.max(1, cloudletOutputSize);
 
 		// Normally, a Cloudlet is only executed on a resource without being
-		// migrated to others. Hence, to reduce memory consumption, set the
-		// size of this ArrayList to be less than the default one.
-		resList = new ArrayList<Resource>(2);
-		index = -1;
+		// migrated to others. Hence, to reduce memory consumption, the list of
+		// resources is only created when it moves to a second one.
+		resource = null;
+		resList = null;
 		this.record = record;
 
 		vmId = -1;
 		accumulatedBwCost = 0.0;
 		costPerBw = 0.0;
 
-		requiredFiles = new LinkedList<String>();
-
 		setUtilizationModelCpu(utilizationModelCpu);
 		setUtilizationModelRam(utilizationModelRam);
 		setUtilizationModelBw(utilizationModelBw);
@@ -489,12 +485,12 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public double getWaitingTime() {
-		if (index == -1) {
+		if (resource == null) {
 			return 0;
 		}
 
 		// use the latest resource submission time
-		final double subTime = resList.get(index).submissionTime;
+		final double subTime = resource.submissionTime;
 		return execStartTime - subTime;
 	}
 
@@ -587,11 +583,11 @@ public class Cloudlet {
 	 * @post $result >= 0.0
 	 */
 	public long getCloudletFinishedSoFar() {
-		if (index == -1) {
+		if (resource == null) {
 			return cloudletLength;
 		}
 
-		final long finish = resList.get(index).finishedSoFar;
+		final long finish = resource.finishedSoFar;
 		if (finish > cloudletLength) {
 			return cloudletLength;
 		}
@@ -607,14 +603,14 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public boolean isFinished() {
-		if (index == -1) {
+		if (resource == null) {
 			return false;
 		}
 
 		boolean completed = false;
 
 		// if result is 0 or -ve then this Cloudlet has finished
-		final long finish = resList.get(index).finishedSoFar;
+		final long finish = resource.finishedSoFar;
 		final long result = cloudletLength - finish;
 		if (result <= 0.0) {
 			completed = true;
@@ -635,12 +631,11 @@ public class Cloudlet {
 	 */
 	public void setCloudletFinishedSoFar(final long length) {
 		// if length is -ve then ignore
-		if (length < 0.0 || index < 0) {
+		if (length < 0.0 || resource == null) {
 			return;
 		}
 
-		final Resource res = resList.get(index);
-		res.finishedSoFar = length;
+		resource.finishedSoFar = length;
 
 		if (record) {
 			write("Sets the length's finished so far to " + length);
@@ -681,10 +676,10 @@ public class Cloudlet {
 	 * @post $result >= -1
 	 */
 	public int getResourceId() {
-		if (index == -1) {
+		if (resource == null) {
 			return -1;
 		}
-		return resList.get(index).resourceId;
+		return resource.resourceId;
 	}
 
 	/**
@@ -728,19 +723,25 @@ public class Cloudlet {
 		res.resourceName = CloudSim.getEntityName(resourceID);
 
 		// add into a list if moving to a new grid resource
-		resList.add(res);
+		if (resource != null && resList == null) {
+			resList = new ArrayList<Resource>(2);
+			resList.add(resource);
+		}
+		if (resList != null) {
+			resList.add(res);
+		}
 
-		if (index == -1 && record) {
+		if (resource == null && record) {
 			write("Allocates this Cloudlet to " + res.resourceName + " (ID #" + resourceID
 					+ ") with cost = $" + cost + "/sec");
 		} else if (record) {
-			final int id = resList.get(index).resourceId;
-			final String name = resList.get(index).resourceName;
+			final int id = resource.resourceId;
+			final String name = resource.resourceName;
 			write("Moves Cloudlet from " + name + " (ID #" + id + ") to " + res.resourceName + " (ID #"
 					+ resourceID + ") with cost = $" + cost + "/sec");
 		}
 
-		index++;  // initially, index = -1
+		resource = res;
 	}
 
 	/**
@@ -751,12 +752,11 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public void setSubmissionTime(final double clockTime) {
-		if (clockTime < 0.0 || index < 0) {
+		if (clockTime < 0.0 || resource == null) {
 			return;
 		}
 
-		final Resource res = resList.get(index);
-		res.submissionTime = clockTime;
+		resource.submissionTime = clockTime;
 
 		if (record) {
 			write("Sets the submission time to " + num.format(clockTime));
@@ -771,10 +771,10 @@ public class Cloudlet {
 	 * @post $result >= 0.0
 	 */
 	public double getSubmissionTime() {
-		if (index == -1) {
+		if (resource == null) {
 			return 0.0;
 		}
-		return resList.get(index).submissionTime;
+		return resource.submissionTime;
 	}
 
 	/**
@@ -817,13 +817,12 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public void setExecParam(final double wallTime, final double actualTime) {
-		if (wallTime < 0.0 || actualTime < 0.0 || index < 0) {
+		if (wallTime < 0.0 || actualTime < 0.0 || resource == null) {
 			return;
 		}
 
-		final Resource res = resList.get(index);
-		res.wallClockTime = wallTime;
-		res.actualCPUTime = actualTime;
+		resource.wallClockTime = wallTime;
+		resource.actualCPUTime = actualTime;
 
 		if (record) {
 			write("Sets the wall clock time to " + num.format(wallTime) + " and the actual CPU time to "
@@ -860,7 +859,7 @@ public class Cloudlet {
 					+ Cloudlet.getStatusString(newStatus));
 		}
 
-		status = newStatus;
+		status = (byte) newStatus;
 	}
 
 	/**
@@ -973,10 +972,10 @@ public class Cloudlet {
 	 * @post $result >= 0.0
 	 */
 	public double getCostPerSec() {
-		if (index == -1) {
+		if (resource == null) {
 			return 0.0;
 		}
-		return resList.get(index).costPerSec;
+		return resource.costPerSec;
 	}
 
 	/**
@@ -988,10 +987,10 @@ public class Cloudlet {
 	 * @post $result >= 0.0
 	 */
 	public double getWallClockTime() {
-		if (index == -1) {
+		if (resource == null) {
 			return 0.0;
 		}
-		return resList.get(index).wallClockTime;
+		return resource.wallClockTime;
 	}
 
 	/**
@@ -1002,14 +1001,16 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public String[] getAllResourceName() {
-		final int size = resList.size();
 		String[] data = null;
 
-		if (size > 0) {
+		if (resList != null) {
+			final int size = resList.size();
 			data = new String[size];
 			for (int i = 0; i < size; i++) {
 				data[i] = resList.get(i).resourceName;
 			}
+		} else if (resource != null) {
+			data = new String[] { resource.resourceName };
 		}
 
 		return data;
@@ -1023,14 +1024,16 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public int[] getAllResourceId() {
-		final int size = resList.size();
 		int[] data = null;
 
-		if (size > 0) {
+		if (resList != null) {
+			final int size = resList.size();
 			data = new int[size];
 			for (int i = 0; i < size; i++) {
 				data[i] = resList.get(i).resourceId;
 			}
+		} else if (resource != null) {
+			data = new int[] { resource.resourceId };
 		}
 
 		return data;
@@ -1144,10 +1147,16 @@ public class Cloudlet {
 	 * @return the resource by id
 	 */
 	public Resource getResourceById(final int resourceId) {
-		for (Resource resource : resList) {
-			if (resource.resourceId == resourceId) {
+		if (resList == null) {
+			if (resource != null && resource.resourceId == resourceId) {
 				return resource;
 			}
+			return null;
+		}
+		for (Resource res : resList) {
+			if (res.resourceId == resourceId) {
+				return res;
+			}
 		}
 		return null;
 	}
@@ -1179,7 +1188,6 @@ public class Cloudlet {
 
 		if (num == null || history == null) { // Creates the history or
 												// transactions of this Cloudlet
-			newline = System.getProperty("line.separator");
 			num = new DecimalFormat("#0.00#"); // with 3 decimal spaces
 			history = new StringBuffer(1000);
 			history.append("Time below denotes the simulation time.");
@@ -1194,7 +1202,7 @@ public class Cloudlet {
 		}
 
 		history.append(num.format(CloudSim.clock()));
-		history.append("   " + str + newline);
+		history.append("   " + str + System.getProperty("line.separator"));
 	}
 
 	/**
@@ -1298,6 +1306,10 @@ public class Cloudlet {
 	 * @return the required files
 	 */
 	public List<String> getRequiredFiles() {
+		// most cloudlets require no files, so the list is only created when asked for
+		if (requiredFiles == null) {
+			requiredFiles = new LinkedList<String>();
+		}
 		return requiredFiles;
 	}
 
@@ -1347,7 +1359,7 @@ public class Cloudlet {
 	 */
 	public boolean deleteRequiredFile(final String filename) {
 		boolean result = false;
-		if (getRequiredFiles() == null) {
+		if (requiredFiles == null) {
 			return result;
 		}
 
@@ -1372,7 +1384,7 @@ public class Cloudlet {
 	 */
 	public boolean requiresFiles() {
 		boolean result = false;
-		if (getRequiredFiles() != null && getRequiredFiles().size() > 0) {
+		if (requiredFiles != null && requiredFiles.size() > 0) {
 			result = true;
 		}
 
@@ -0,0 +1,317 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CloudletExecQueue keeps the cloudlets executing in a VM in which every Pe of every cloudlet
+ * progresses at the same rate. Instead of updating each cloudlet, the queue keeps a virtual time
+ * for each number of Pes, that is the length a cloudlet with that many Pes has executed since the
+ * queue was created, and orders the cloudlets in a min-heap by the virtual time at which they
+ * finish. The virtual time advances by the same truncated amount a cloudlet would, so the progress
+ * of each cloudlet is exactly the one of updating it directly. Advancing the time is O(1) for each
+ * number of Pes in use, finding the next cloudlets to finish is O(1) and adding or removing a
+ * cloudlet is O(log n). The progress of a cloudlet is written to its ResCloudlet lazily, when it is
+ * at the head of the queue or leaves it.
+ */
+class CloudletExecQueue {
+
+	/** The lane of each number of Pes, indexed by the number of Pes. */
+	private Lane[] lanes;
+
+	/** The entry of each cloudlet in the queue. */
+	private final Map<ResCloudlet, Entry> entries;
+
+	/** The number of Pes used by the cloudlets in the queue. */
+	private int pesInUse;
+
+	/** The sequence number of the next cloudlet added. */
+	private long nextSeq;
+
+	/**
+	 * A cloudlet in the queue.
+	 */
+	private static class Entry {
+
+		/** The cloudlet. */
+		private final ResCloudlet rcl;
+
+		/** The lane of the cloudlet. */
+		private final Lane lane;
+
+		/** The order in which the cloudlet is added. */
+		private final long seq;
+
+		/** The virtual time at which the progress of the cloudlet is last written. */
+		private long virtualSync;
+
+		/** The virtual time after which the cloudlet has less than 1 MI to execute. */
+		private final long virtualFinish;
+
+		/** The position in the heap of the lane. */
+		private int index;
+
+		private Entry(ResCloudlet rcl, Lane lane, long seq) {
+			this.rcl = rcl;
+			this.lane = lane;
+			this.seq = seq;
+			virtualSync = lane.virtualTime;
+			// ResCloudlet.getRemainingCloudletLength() is 0 once less than 1 MI remains
+			long remaining = rcl.getCloudletTotalLength() * Consts.MILLION - rcl.getCloudletFinishedSoFar();
+			virtualFinish = lane.virtualTime + remaining - Consts.MILLION;
+		}
+	}
+
+	/**
+	 * The cloudlets with the same number of Pes, which share a virtual time.
+	 */
+	private static class Lane {
+
+		/** The number of Pes of each cloudlet. */
+		private final int pes;
+
+		/** The length in MI * 1,000,000 a cloudlet in this lane has executed so far. */
+		private long virtualTime;
+
+		/** The heap of entries ordered by virtual finish time. */
+		private Entry[] heap;
+
+		/** The number of entries in the heap. */
+		private int size;
+
+		private Lane(int pes) {
+			this.pes = pes;
+			heap = new Entry[16];
+		}
+
+		private void add(Entry entry) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+			}
+			entry.index = size;
+			heap[size++] = entry;
+			siftUp(entry.index);
+		}
+
+		private void removeAt(int index) {
+			size--;
+			Entry last = heap[size];
+			heap[size] = null;
+			if (index < size) {
+				heap[index] = last;
+				last.index = index;
+				siftDown(index);
+				if (heap[index] == last) {
+					siftUp(index);
+				}
+			}
+		}
+
+		private void siftUp(int index) {
+			Entry entry = heap[index];
+			while (index > 0) {
+				int parent = (index - 1) >>> 1;
+				if (!before(entry, heap[parent])) {
+					break;
+				}
+				heap[index] = heap[parent];
+				heap[index].index = index;
+				index = parent;
+			}
+			heap[index] = entry;
+			entry.index = index;
+		}
+
+		private void siftDown(int index) {
+			Entry entry = heap[index];
+			int half = size >>> 1;
+			while (index < half) {
+				int child = 2 * index + 1;
+				int right = child + 1;
+				if (right < size && before(heap[right], heap[child])) {
+					child = right;
+				}
+				if (!before(heap[child], entry)) {
+					break;
+				}
+				heap[index] = heap[child];
+				heap[index].index = index;
+				index = child;
+			}
+			heap[index] = entry;
+			entry.index = index;
+		}
+
+		/**
+		 * Whether an entry finishes before another one. Ties are broken by the order they were
+		 * added.
+		 */
+		private static boolean before(Entry e1, Entry e2) {
+			if (e1.virtualFinish != e2.virtualFinish) {
+				return e1.virtualFinish < e2.virtualFinish;
+			}
+			return e1.seq < e2.seq;
+		}
+	}
+
+	/** Orders finished cloudlets as they were added. */
+	private static final Comparator<Entry> SEQ_ORDER = new Comparator<Entry>() {
+
+		@Override
+		public int compare(Entry e1, Entry e2) {
+			return e1.seq < e2.seq ? -1 : (e1.seq == e2.seq ? 0 : 1);
+		}
+	};
+
+	/**
+	 * Creates an empty queue.
+	 */
+	CloudletExecQueue() {
+		lanes = new Lane[2];
+		entries = new IdentityHashMap<ResCloudlet, Entry>();
+	}
+
+	/**
+	 * Advances the virtual time. Every cloudlet executes its number of Pes times the capacity of a
+	 * Pe for the time span.
+	 *
+	 * @param capacity the capacity of each Pe
+	 * @param timeSpan the time span
+	 */
+	void advance(double capacity, double timeSpan) {
+		for (Lane lane : lanes) {
+			if (lane != null && lane.size > 0) {
+				lane.virtualTime += (long) (capacity * timeSpan * lane.pes * Consts.MILLION);
+			}
+		}
+	}
+
+	/**
+	 * Adds a cloudlet that starts executing from its remaining length.
+	 *
+	 * @param rcl the cloudlet
+	 */
+	void add(ResCloudlet rcl) {
+		int pes = rcl.getNumberOfPes();
+		if (pes >= lanes.length) {
+			lanes = Arrays.copyOf(lanes, Math.max(pes + 1, lanes.length * 2));
+		}
+		if (lanes[pes] == null) {
+			lanes[pes] = new Lane(pes);
+		}
+		Entry entry = new Entry(rcl, lanes[pes], nextSeq++);
+		entry.lane.add(entry);
+		entries.put(rcl, entry);
+		pesInUse += pes;
+	}
+
+	/**
+	 * Removes a cloudlet, writing its progress first.
+	 *
+	 * @param rcl the cloudlet
+	 * @return $true if the cloudlet was in the queue
+	 */
+	boolean remove(ResCloudlet rcl) {
+		Entry entry = entries.remove(rcl);
+		if (entry == null) {
+			return false;
+		}
+		sync(entry);
+		entry.lane.removeAt(entry.index);
+		pesInUse -= entry.lane.pes;
+		return true;
+	}
+
+	/**
+	 * Removes the cloudlets that have less than 1 MI to execute, writing their progress.
+	 *
+	 * @return the finished cloudlets, in the order they were added
+	 */
+	List<ResCloudlet> pollFinished() {
+		List<Entry> finished = null;
+		for (Lane lane : lanes) {
+			while (lane != null && lane.size > 0 && lane.heap[0].virtualFinish < lane.virtualTime) {
+				Entry entry = lane.heap[0];
+				sync(entry);
+				if (finished == null) {
+					finished = new ArrayList<Entry>();
+				}
+				finished.add(entry);
+				entries.remove(entry.rcl);
+				lane.removeAt(0);
+				pesInUse -= lane.pes;
+			}
+		}
+		if (finished == null) {
+			return Collections.emptyList();
+		}
+		Collections.sort(finished, SEQ_ORDER);
+		List<ResCloudlet> list = new ArrayList<ResCloudlet>(finished.size());
+		for (Entry entry : finished) {
+			list.add(entry.rcl);
+		}
+		return list;
+	}
+
+	/**
+	 * Gets the cloudlet that finishes first among those with the same number of Pes, for each number
+	 * of Pes in use, with their progress written.
+	 *
+	 * @return the cloudlets
+	 */
+	List<ResCloudlet> peekEach() {
+		List<ResCloudlet> list = new ArrayList<ResCloudlet>(1);
+		for (Lane lane : lanes) {
+			if (lane != null && lane.size > 0) {
+				sync(lane.heap[0]);
+				list.add(lane.heap[0].rcl);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Gets the number of cloudlets in the queue.
+	 *
+	 * @return the number of cloudlets
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the number of Pes used by the cloudlets in the queue.
+	 *
+	 * @return the number of Pes
+	 */
+	int getPesInUse() {
+		return pesInUse;
+	}
+
+	/**
+	 * Writes the progress of a cloudlet since it was last written.
+	 *
+	 * @param entry the entry of the cloudlet
+	 */
+	private static void sync(Entry entry) {
+		long progress = entry.lane.virtualTime - entry.virtualSync;
+		if (progress != 0) {
+			entry.rcl.updateCloudletFinishedSoFar(progress);
+			entry.virtualSync = entry.lane.virtualTime;
+		}
+	}
+
+}
@@ -8,8 +8,11 @@
 
 package org.cloudbus.cloudsim;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.cloudbus.cloudsim.util.MathUtil;
+
 /**
  * CloudletScheduler is an abstract class that represents the policy of scheduling performed by a
  * virtual machine. So, classes extending this must execute Cloudlets. Also, the interface for
@@ -25,7 +28,7 @@ public abstract class CloudletScheduler {
 	private double previousTime;
 
 	/** The current mips share. */
-	private List<Double> currentMipsShare;
+	private double[] currentMipsShare;
 
 	/**
 	 * Creates a new CloudletScheduler object. This method must be invoked before starting the
@@ -48,7 +51,22 @@ public abstract class CloudletScheduler {
 	 * @pre currentTime >= 0
 	 * @post $none
 	 */
-	public abstract double updateVmProcessing(double currentTime, List<Double> mipsShare);
+	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+		return updateVmProcessing(currentTime, mipsShare == null ? null : MathUtil.listToArray(mipsShare));
+	}
+
+	/**
+	 * Updates the processing of cloudlets running under management of this scheduler. The array
+	 * must not be modified afterwards, as the scheduler keeps it as its current mips share.
+	 * 
+	 * @param currentTime current simulation time
+	 * @param mipsShare array with MIPS share of each processor available to the scheduler
+	 * @return time predicted completion time of the earliest finishing cloudlet, or 0 if there is no
+	 *         next events
+	 * @pre currentTime >= 0
+	 * @post $none
+	 */
+	public abstract double updateVmProcessing(double currentTime, double[] mipsShare);
 
 	/**
 	 * Receives an cloudlet to be executed in the VM managed by this scheduler.
@@ -236,6 +254,15 @@ public abstract class CloudletScheduler {
 	 * @param currentMipsShare the new current mips share
 	 */
 	protected void setCurrentMipsShare(List<Double> currentMipsShare) {
+		setCurrentMipsShare(currentMipsShare == null ? null : MathUtil.listToArray(currentMipsShare));
+	}
+
+	/**
+	 * Sets the current mips share.
+	 * 
+	 * @param currentMipsShare the new current mips share
+	 */
+	protected void setCurrentMipsShare(double[] currentMipsShare) {
 		this.currentMipsShare = currentMipsShare;
 	}
 
@@ -245,6 +272,22 @@ public abstract class CloudletScheduler {
 	 * @return the current mips share
 	 */
 	public List<Double> getCurrentMipsShare() {
+		if (currentMipsShare == null) {
+			return null;
+		}
+		List<Double> mipsShare = new ArrayList<Double>(currentMipsShare.length);
+		for (double mips : currentMipsShare) {
+			mipsShare.add(mips);
+		}
+		return mipsShare;
+	}
+
+	/**
+	 * Gets the current mips share as an array, which must not be modified.
+	 * 
+	 * @return the current mips share
+	 */
+	protected double[] getCurrentMipsShareArray() {
 		return currentMipsShare;
 	}
 
@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.util.MathUtil;
 
 /**
  * CloudletSchedulerDynamicWorkload implements a policy of scheduling performed by a virtual machine
@@ -67,7 +68,7 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 	 * @post $none
 	 */
 	@Override
-	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+	public double updateVmProcessing(double currentTime, double[] mipsShare) {
 		setCurrentMipsShare(mipsShare);
 
 		double timeSpan = currentTime - getPreviousTime();
@@ -215,6 +216,18 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 	 */
 	@Override
 	public double getTotalCurrentAvailableMipsForCloudlet(ResCloudlet rcl, List<Double> mipsShare) {
+		return getTotalCurrentAvailableMipsForCloudlet(rcl,
+				mipsShare == null ? null : MathUtil.listToArray(mipsShare));
+	}
+
+	/**
+	 * Gets the total current mips for the clouddlet.
+	 * 
+	 * @param rcl the rcl
+	 * @param mipsShare the mips share
+	 * @return the total current mips
+	 */
+	protected double getTotalCurrentAvailableMipsForCloudlet(ResCloudlet rcl, double[] mipsShare) {
 		double totalCurrentMips = 0.0;
 		if (mipsShare != null) {
 			int neededPEs = rcl.getNumberOfPes();
@@ -239,7 +252,7 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 	@Override
 	public double getTotalCurrentAllocatedMipsForCloudlet(ResCloudlet rcl, double time) {
 		double totalCurrentRequestedMips = getTotalCurrentRequestedMipsForCloudlet(rcl, time);
-		double totalCurrentAvailableMips = getTotalCurrentAvailableMipsForCloudlet(rcl, getCurrentMipsShare());
+		double totalCurrentAvailableMips = getTotalCurrentAvailableMipsForCloudlet(rcl, getCurrentMipsShareArray());
 		if (totalCurrentRequestedMips > totalCurrentAvailableMips) {
 			return totalCurrentAvailableMips;
 		}
@@ -278,7 +291,7 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 	 */
 	public int getTotalCurrentMips() {
 		int totalCurrentMips = 0;
-		for (double mips : getCurrentMipsShare()) {
+		for (double mips : getCurrentMipsShareArray()) {
 			totalCurrentMips += mips;
 		}
 		return totalCurrentMips;
@@ -8,8 +8,13 @@
 
 package org.cloudbus.cloudsim;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 
@@ -19,6 +24,11 @@ import org.cloudbus.cloudsim.core.CloudSim;
  * We consider that file transfer from cloudlets waiting happens before cloudlet execution. I.e.,
  * even though cloudlets must wait for CPU, data transfer happens as soon as cloudlets are
  * submitted.
+ * <p>
+ * The waiting cloudlets are kept in a FIFO queue and the executing ones in a
+ * {@link CloudletExecQueue} by virtual finish time. Every waiting, executing or paused cloudlet can
+ * be found by its id, so that VMs with deep queues submit, finish and look up cloudlets in O(1) or
+ * O(log n).
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -26,8 +36,8 @@ import org.cloudbus.cloudsim.core.CloudSim;
  */
 public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 
-	/** The cloudlet waiting list. */
-	private List<? extends ResCloudlet> cloudletWaitingList;
+	/** The cloudlet waiting queue. */
+	private Deque<? extends ResCloudlet> cloudletWaitingQueue;
 
 	/** The cloudlet exec list. */
 	private List<? extends ResCloudlet> cloudletExecList;
@@ -44,6 +54,12 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	/** The used PEs. */
 	protected int usedPes;
 
+	/** The waiting, executing and paused cloudlets by id. */
+	private final Map<Integer, ResCloudlet> cloudletMap;
+
+	/** The executing cloudlets by virtual finish time. */
+	private final CloudletExecQueue execQueue;
+
 	/**
 	 * Creates a new CloudletSchedulerSpaceShared object. This method must be invoked before
 	 * starting the actual simulation.
@@ -53,12 +69,14 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	public CloudletSchedulerSpaceShared() {
 		super();
-		cloudletWaitingList = new ArrayList<ResCloudlet>();
+		cloudletWaitingQueue = new ArrayDeque<ResCloudlet>();
 		cloudletExecList = new ArrayList<ResCloudlet>();
 		cloudletPausedList = new ArrayList<ResCloudlet>();
 		cloudletFinishedList = new ArrayList<ResCloudlet>();
 		usedPes = 0;
 		currentCpus = 0;
+		cloudletMap = new HashMap<Integer, ResCloudlet>();
+		execQueue = new CloudletExecQueue();
 	}
 
 	/**
@@ -72,13 +90,13 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 * @post $none
 	 */
 	@Override
-	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+	public double updateVmProcessing(double currentTime, double[] mipsShare) {
 		setCurrentMipsShare(mipsShare);
 		double timeSpam = currentTime - getPreviousTime(); // time since last update
 		double capacity = 0.0;
 		int cpus = 0;
 
-		for (Double mips : mipsShare) { // count the CPUs available to the VMM
+		for (double mips : mipsShare) { // count the CPUs available to the VMM
 			capacity += mips;
 			if (mips > 0) {
 				cpus++;
@@ -88,52 +106,48 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 		capacity /= cpus; // average capacity of each cpu
 
 		// each machine in the exec list has the same amount of cpu
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			rcl.updateCloudletFinishedSoFar((long) (capacity * timeSpam * rcl.getNumberOfPes() * Consts.MILLION));
-		}
+		execQueue.advance(capacity, timeSpam);
 
 		// no more cloudlets in this scheduler
-		if (getCloudletExecList().size() == 0 && getCloudletWaitingList().size() == 0) {
+		if (getCloudletExecList().size() == 0 && getCloudletWaitingQueue().isEmpty()) {
 			setPreviousTime(currentTime);
 			return 0.0;
 		}
 
 		// update each cloudlet
 		int finished = 0;
-		List<ResCloudlet> toRemove = new ArrayList<ResCloudlet>();
-		for (ResCloudlet rcl : getCloudletExecList()) {
+		for (ResCloudlet rcl : execQueue.pollFinished()) {
 			// finished anyway, rounding issue...
-			if (rcl.getRemainingCloudletLength() == 0) {
-				toRemove.add(rcl);
-				cloudletFinish(rcl);
-				finished++;
-			}
+			getCloudletExecList().remove(rcl);
+			cloudletFinish(rcl);
+			finished++;
 		}
-		getCloudletExecList().removeAll(toRemove);
 
-		// for each finished cloudlet, add a new one from the waiting list
-		if (!getCloudletWaitingList().isEmpty()) {
+		// for each finished cloudlet, add a new one from the waiting queue
+		if (!getCloudletWaitingQueue().isEmpty()) {
 			for (int i = 0; i < finished; i++) {
-				toRemove.clear();
-				for (ResCloudlet rcl : getCloudletWaitingList()) {
+				Iterator<ResCloudlet> it = getCloudletWaitingQueue().iterator();
+				while (it.hasNext()) {
+					ResCloudlet rcl = it.next();
 					if ((currentCpus - usedPes) >= rcl.getNumberOfPes()) {
+						it.remove();
 						rcl.setCloudletStatus(Cloudlet.INEXEC);
 						for (int k = 0; k < rcl.getNumberOfPes(); k++) {
 							rcl.setMachineAndPeId(0, i);
 						}
 						getCloudletExecList().add(rcl);
+						execQueue.add(rcl);
 						usedPes += rcl.getNumberOfPes();
-						toRemove.add(rcl);
 						break;
 					}
 				}
-				getCloudletWaitingList().removeAll(toRemove);
 			}
 		}
 
-		// estimate finish time of cloudlets in the execution queue
+		// estimate finish time of cloudlets in the execution queue, only the first to finish of
+		// each number of pes
 		double nextEvent = Double.MAX_VALUE;
-		for (ResCloudlet rcl : getCloudletExecList()) {
+		for (ResCloudlet rcl : execQueue.peekEach()) {
 			double remainingLength = rcl.getRemainingCloudletLength();
 			double estimatedFinishTime = currentTime + (remainingLength / (capacity * rcl.getNumberOfPes()));
 			if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
@@ -165,38 +179,35 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 			}
 		}
 
-		// Then searches in the exec list
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			if (rcl.getCloudletId() == cloudletId) {
+		ResCloudlet rcl = cloudletMap.get(cloudletId);
+		if (rcl == null) {
+			return null;
+		}
+
+		switch (rcl.getCloudletStatus()) {
+			case Cloudlet.INEXEC:
 				getCloudletExecList().remove(rcl);
+				execQueue.remove(rcl);
 				if (rcl.getRemainingCloudletLength() == 0) {
 					cloudletFinish(rcl);
 				} else {
+					cloudletMap.remove(cloudletId);
 					rcl.setCloudletStatus(Cloudlet.CANCELED);
+					// keeps the partial work and releases the pes
+					rcl.finalizeCloudlet();
+					usedPes -= rcl.getNumberOfPes();
 				}
 				return rcl.getCloudlet();
-			}
-		}
-
-		// Now, looks in the paused queue
-		for (ResCloudlet rcl : getCloudletPausedList()) {
-			if (rcl.getCloudletId() == cloudletId) {
+			case Cloudlet.PAUSED:
+				cloudletMap.remove(cloudletId);
 				getCloudletPausedList().remove(rcl);
 				return rcl.getCloudlet();
-			}
-		}
-
-		// Finally, looks in the waiting list
-		for (ResCloudlet rcl : getCloudletWaitingList()) {
-			if (rcl.getCloudletId() == cloudletId) {
+			default:
+				cloudletMap.remove(cloudletId);
 				rcl.setCloudletStatus(Cloudlet.CANCELED);
-				getCloudletWaitingList().remove(rcl);
+				getCloudletWaitingQueue().remove(rcl);
 				return rcl.getCloudlet();
-			}
 		}
-
-		return null;
-
 	}
 
 	/**
@@ -209,56 +220,31 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public boolean cloudletPause(int cloudletId) {
-		boolean found = false;
-		int position = 0;
-
-		// first, looks for the cloudlet in the exec list
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				found = true;
-				break;
-			}
-			position++;
+		ResCloudlet rgl = cloudletMap.get(cloudletId);
+		if (rgl == null) {
+			return false;
 		}
 
-		if (found) {
-			// moves to the paused list
-			ResCloudlet rgl = getCloudletExecList().remove(position);
-			if (rgl.getRemainingCloudletLength() == 0) {
-				cloudletFinish(rgl);
-			} else {
-				rgl.setCloudletStatus(Cloudlet.PAUSED);
-				getCloudletPausedList().add(rgl);
-			}
-			return true;
-
-		}
-
-		// now, look for the cloudlet in the waiting list
-		position = 0;
-		found = false;
-		for (ResCloudlet rcl : getCloudletWaitingList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				found = true;
+		switch (rgl.getCloudletStatus()) {
+			case Cloudlet.INEXEC:
+				getCloudletExecList().remove(rgl);
+				execQueue.remove(rgl);
 				break;
-			}
-			position++;
+			case Cloudlet.QUEUED:
+				getCloudletWaitingQueue().remove(rgl);
+				break;
+			default:
+				return false;
 		}
 
-		if (found) {
-			// moves to the paused list
-			ResCloudlet rgl = getCloudletWaitingList().remove(position);
-			if (rgl.getRemainingCloudletLength() == 0) {
-				cloudletFinish(rgl);
-			} else {
-				rgl.setCloudletStatus(Cloudlet.PAUSED);
-				getCloudletPausedList().add(rgl);
-			}
-			return true;
-
+		// moves to the paused list
+		if (rgl.getRemainingCloudletLength() == 0) {
+			cloudletFinish(rgl);
+		} else {
+			rgl.setCloudletStatus(Cloudlet.PAUSED);
+			getCloudletPausedList().add(rgl);
 		}
-
-		return false;
+		return true;
 	}
 
 	/**
@@ -270,6 +256,9 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public void cloudletFinish(ResCloudlet rcl) {
+		if (cloudletMap.get(rcl.getCloudletId()) == rcl) {
+			cloudletMap.remove(rcl.getCloudletId());
+		}
 		rcl.setCloudletStatus(Cloudlet.SUCCESS);
 		rcl.finalizeCloudlet();
 		getCloudletFinishedList().add(rcl);
@@ -286,20 +275,10 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public double cloudletResume(int cloudletId) {
-		boolean found = false;
-		int position = 0;
-
 		// look for the cloudlet in the paused list
-		for (ResCloudlet rcl : getCloudletPausedList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				found = true;
-				break;
-			}
-			position++;
-		}
-
-		if (found) {
-			ResCloudlet rcl = getCloudletPausedList().remove(position);
+		ResCloudlet rcl = cloudletMap.get(cloudletId);
+		if (rcl != null && rcl.getCloudletStatus() == Cloudlet.PAUSED) {
+			getCloudletPausedList().remove(rcl);
 
 			// it can go to the exec list
 			if ((currentCpus - usedPes) >= rcl.getNumberOfPes()) {
@@ -313,12 +292,13 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 				rcl.getCloudlet().setCloudletLength(size);
 
 				getCloudletExecList().add(rcl);
+				execQueue.add(rcl);
 				usedPes += rcl.getNumberOfPes();
 
 				// calculate the expected time for cloudlet completion
 				double capacity = 0.0;
 				int cpus = 0;
-				for (Double mips : getCurrentMipsShare()) {
+				for (double mips : getCurrentMipsShareArray()) {
 					capacity += mips;
 					if (mips > 0) {
 						cpus++;
@@ -339,7 +319,7 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 				size *= rcl.getNumberOfPes();
 				rcl.getCloudlet().setCloudletLength(size);
 
-				getCloudletWaitingList().add(rcl);
+				getCloudletWaitingQueue().add(rcl);
 				return 0.0;
 			}
 
@@ -361,9 +341,10 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
+		ResCloudlet rcl = new ResCloudlet(cloudlet);
+		cloudletMap.put(cloudlet.getCloudletId(), rcl);
 		// it can go to the exec list
 		if ((currentCpus - usedPes) >= cloudlet.getNumberOfPes()) {
-			ResCloudlet rcl = new ResCloudlet(cloudlet);
 			rcl.setCloudletStatus(Cloudlet.INEXEC);
 			for (int i = 0; i < cloudlet.getNumberOfPes(); i++) {
 				rcl.setMachineAndPeId(0, i);
@@ -371,16 +352,15 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 			getCloudletExecList().add(rcl);
 			usedPes += cloudlet.getNumberOfPes();
 		} else {// no enough free PEs: go to the waiting queue
-			ResCloudlet rcl = new ResCloudlet(cloudlet);
 			rcl.setCloudletStatus(Cloudlet.QUEUED);
-			getCloudletWaitingList().add(rcl);
+			getCloudletWaitingQueue().add(rcl);
 			return 0.0;
 		}
 
 		// calculate the expected time for cloudlet completion
 		double capacity = 0.0;
 		int cpus = 0;
-		for (Double mips : getCurrentMipsShare()) {
+		for (double mips : getCurrentMipsShareArray()) {
 			capacity += mips;
 			if (mips > 0) {
 				cpus++;
@@ -396,6 +376,7 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 		long length = cloudlet.getCloudletLength();
 		length += extraSize;
 		cloudlet.setCloudletLength(length);
+		execQueue.add(rcl);
 		return cloudlet.getCloudletLength() / capacity;
 	}
 
@@ -418,24 +399,10 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public int getCloudletStatus(int cloudletId) {
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				return rcl.getCloudletStatus();
-			}
-		}
-
-		for (ResCloudlet rcl : getCloudletPausedList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				return rcl.getCloudletStatus();
-			}
-		}
-
-		for (ResCloudlet rcl : getCloudletWaitingList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				return rcl.getCloudletStatus();
-			}
+		ResCloudlet rcl = cloudletMap.get(cloudletId);
+		if (rcl != null) {
+			return rcl.getCloudletStatus();
 		}
-
 		return -1;
 	}
 
@@ -503,6 +470,8 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	@Override
 	public Cloudlet migrateCloudlet() {
 		ResCloudlet rcl = getCloudletExecList().remove(0);
+		execQueue.remove(rcl);
+		cloudletMap.remove(rcl.getCloudletId());
 		rcl.finalizeCloudlet();
 		Cloudlet cl = rcl.getCloudlet();
 		usedPes -= cl.getNumberOfPes();
@@ -510,24 +479,24 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	}
 
 	/**
-	 * Gets the cloudlet waiting list.
+	 * Gets the cloudlet waiting queue.
 	 * 
 	 * @param <T> the generic type
-	 * @return the cloudlet waiting list
+	 * @return the cloudlet waiting queue
 	 */
 	@SuppressWarnings("unchecked")
-	protected <T extends ResCloudlet> List<T> getCloudletWaitingList() {
-		return (List<T>) cloudletWaitingList;
+	protected <T extends ResCloudlet> Deque<T> getCloudletWaitingQueue() {
+		return (Deque<T>) cloudletWaitingQueue;
 	}
 
 	/**
-	 * Cloudlet waiting list.
+	 * Sets the cloudlet waiting queue.
 	 * 
 	 * @param <T> the generic type
-	 * @param cloudletWaitingList the cloudlet waiting list
+	 * @param cloudletWaitingQueue the cloudlet waiting queue
 	 */
-	protected <T extends ResCloudlet> void cloudletWaitingList(List<T> cloudletWaitingList) {
-		this.cloudletWaitingList = cloudletWaitingList;
+	protected <T extends ResCloudlet> void setCloudletWaitingQueue(Deque<T> cloudletWaitingQueue) {
+		this.cloudletWaitingQueue = cloudletWaitingQueue;
 	}
 
 	/**
@@ -600,8 +569,8 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	@Override
 	public List<Double> getCurrentRequestedMips() {
 		List<Double> mipsShare = new ArrayList<Double>();
-		if (getCurrentMipsShare() != null) {
-			for (Double mips : getCurrentMipsShare()) {
+		if (getCurrentMipsShareArray() != null) {
+			for (double mips : getCurrentMipsShareArray()) {
 				mipsShare.add(mips);
 			}
 		}
@@ -618,7 +587,7 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	public double getTotalCurrentAvailableMipsForCloudlet(ResCloudlet rcl, List<Double> mipsShare) {
 		double capacity = 0.0;
 		int cpus = 0;
-		for (Double mips : mipsShare) { // count the cpus available to the vmm
+		for (double mips : mipsShare) { // count the cpus available to the vmm
 			capacity += mips;
 			if (mips > 0) {
 				cpus++;
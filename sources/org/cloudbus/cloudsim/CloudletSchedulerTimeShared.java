@@ -11,10 +11,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.util.MathUtil;
 
 /**
  * CloudletSchedulerTimeShared implements a policy of scheduling performed by a virtual machine.
- * Cloudlets execute time-shared in VM.
+ * Cloudlets execute time-shared in VM. As every cloudlet gets the same share of each Pe, the
+ * executing cloudlets are kept in a {@link CloudletExecQueue} by virtual finish time, so that an
+ * update only touches the cloudlets that finish. Finished cloudlets leave the exec list when it is
+ * next read.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -34,6 +38,9 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	/** The current cp us. */
 	protected int currentCPUs;
 
+	/** The cloudlets submitted or resumed by this scheduler, by virtual finish time. */
+	private final CloudletExecQueue execQueue;
+
 	/**
 	 * Creates a new CloudletSchedulerTimeShared object. This method must be invoked before starting
 	 * the actual simulation.
@@ -47,6 +54,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		cloudletPausedList = new ArrayList<ResCloudlet>();
 		cloudletFinishedList = new ArrayList<ResCloudlet>();
 		currentCPUs = 0;
+		execQueue = new CloudletExecQueue();
 	}
 
 	/**
@@ -60,36 +68,32 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	 * @post $none
 	 */
 	@Override
-	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+	public double updateVmProcessing(double currentTime, double[] mipsShare) {
 		setCurrentMipsShare(mipsShare);
 		double timeSpam = currentTime - getPreviousTime();
 
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			rcl.updateCloudletFinishedSoFar((long) (getCapacity(mipsShare) * timeSpam * rcl.getNumberOfPes() * Consts.MILLION));
-		}
+		execQueue.advance(getCapacity(mipsShare, execQueue.getPesInUse()), timeSpam);
 
-		if (getCloudletExecList().size() == 0) {
+		if (execQueue.size() == 0) {
 			setPreviousTime(currentTime);
 			return 0.0;
 		}
 
 		// check finished cloudlets
-		double nextEvent = Double.MAX_VALUE;
-		List<ResCloudlet> toRemove = new ArrayList<ResCloudlet>();
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			long remainingLength = rcl.getRemainingCloudletLength();
-			if (remainingLength == 0) {// finished: remove from the list
-				toRemove.add(rcl);
-				cloudletFinish(rcl);
-				continue;
-			}
+		List<ResCloudlet> finished = execQueue.pollFinished();
+		for (ResCloudlet rcl : finished) {
+			cloudletFinish(rcl);
+		}
+		if (!finished.isEmpty()) {
+			removeFinishedCloudlets();
 		}
-		getCloudletExecList().removeAll(toRemove);
 
-		// estimate finish time of cloudlets
-		for (ResCloudlet rcl : getCloudletExecList()) {
+		// estimate finish time of cloudlets, only the first to finish of each number of pes
+		double nextEvent = Double.MAX_VALUE;
+		double capacity = getCapacity(mipsShare, execQueue.getPesInUse());
+		for (ResCloudlet rcl : execQueue.peekEach()) {
 			double estimatedFinishTime = currentTime
-					+ (rcl.getRemainingCloudletLength() / (getCapacity(mipsShare) * rcl.getNumberOfPes()));
+					+ (rcl.getRemainingCloudletLength() / (capacity * rcl.getNumberOfPes()));
 			if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
 				estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
 			}
@@ -110,9 +114,34 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	 * @return the capacity
 	 */
 	protected double getCapacity(List<Double> mipsShare) {
+		return getCapacity(MathUtil.listToArray(mipsShare));
+	}
+
+	/**
+	 * Gets the capacity.
+	 * 
+	 * @param mipsShare the mips share
+	 * @return the capacity
+	 */
+	protected double getCapacity(double[] mipsShare) {
+		int pesInUse = 0;
+		for (ResCloudlet rcl : getCloudletExecList()) {
+			pesInUse += rcl.getNumberOfPes();
+		}
+		return getCapacity(mipsShare, pesInUse);
+	}
+
+	/**
+	 * Gets the capacity.
+	 * 
+	 * @param mipsShare the mips share
+	 * @param pesInUse the number of pes used by the executing cloudlets
+	 * @return the capacity
+	 */
+	private double getCapacity(double[] mipsShare, int pesInUse) {
 		double capacity = 0.0;
 		int cpus = 0;
-		for (Double mips : mipsShare) {
+		for (double mips : mipsShare) {
 			capacity += mips;
 			if (mips > 0.0) {
 				cpus++;
@@ -120,11 +149,6 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		}
 		currentCPUs = cpus;
 
-		int pesInUse = 0;
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			pesInUse += rcl.getNumberOfPes();
-		}
-
 		if (pesInUse > currentCPUs) {
 			capacity /= pesInUse;
 		} else {
@@ -172,10 +196,13 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 
 		if (found) {
 			ResCloudlet rcl = getCloudletExecList().remove(position);
+			execQueue.remove(rcl);
 			if (rcl.getRemainingCloudletLength() == 0) {
 				cloudletFinish(rcl);
 			} else {
 				rcl.setCloudletStatus(Cloudlet.CANCELED);
+				// keeps the partial work
+				rcl.finalizeCloudlet();
 			}
 			return rcl.getCloudlet();
 		}
@@ -223,6 +250,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		if (found) {
 			// remove cloudlet from the exec list and put it in the paused list
 			ResCloudlet rcl = getCloudletExecList().remove(position);
+			execQueue.remove(rcl);
 			if (rcl.getRemainingCloudletLength() == 0) {
 				cloudletFinish(rcl);
 			} else {
@@ -274,13 +302,14 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 			ResCloudlet rgl = getCloudletPausedList().remove(position);
 			rgl.setCloudletStatus(Cloudlet.INEXEC);
 			getCloudletExecList().add(rgl);
+			execQueue.add(rgl);
 
 			// calculate the expected time for cloudlet completion
 			// first: how many PEs do we have?
 
 			double remainingLength = rgl.getRemainingCloudletLength();
 			double estimatedFinishTime = CloudSim.clock()
-					+ (remainingLength / (getCapacity(getCurrentMipsShare()) * rgl.getNumberOfPes()));
+					+ (remainingLength / (getCapacity(getCurrentMipsShareArray()) * rgl.getNumberOfPes()));
 
 			return estimatedFinishTime;
 		}
@@ -309,11 +338,13 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 
 		// use the current capacity to estimate the extra amount of
 		// time to file transferring. It must be added to the cloudlet length
-		double extraSize = getCapacity(getCurrentMipsShare()) * fileTransferTime;
+		double capacity = getCapacity(getCurrentMipsShareArray(), execQueue.getPesInUse() + rcl.getNumberOfPes());
+		double extraSize = capacity * fileTransferTime;
 		long length = (long) (cloudlet.getCloudletLength() + extraSize);
 		cloudlet.setCloudletLength(length);
+		execQueue.add(rcl);
 
-		return cloudlet.getCloudletLength() / getCapacity(getCurrentMipsShare());
+		return cloudlet.getCloudletLength() / capacity;
 	}
 
 	/*
@@ -412,6 +443,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	@Override
 	public Cloudlet migrateCloudlet() {
 		ResCloudlet rgl = getCloudletExecList().remove(0);
+		execQueue.remove(rgl);
 		rgl.finalizeCloudlet();
 		return rgl.getCloudlet();
 	}
@@ -427,6 +459,22 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		return (List<T>) cloudletExecList;
 	}
 
+	/**
+	 * Removes the finished cloudlets from the exec list in one pass, keeping the order of the
+	 * others.
+	 */
+	private void removeFinishedCloudlets() {
+		List<ResCloudlet> list = getCloudletExecList();
+		int size = 0;
+		for (int i = 0; i < list.size(); i++) {
+			ResCloudlet rcl = list.get(i);
+			if (rcl.getCloudletStatus() != Cloudlet.SUCCESS) {
+				list.set(size++, rcl);
+			}
+		}
+		list.subList(size, list.size()).clear();
+	}
+
 	/**
 	 * Sets the cloudlet exec list.
 	 * 
@@ -496,7 +544,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	 */
 	@Override
 	public double getTotalCurrentAvailableMipsForCloudlet(ResCloudlet rcl, List<Double> mipsShare) {
-		return getCapacity(getCurrentMipsShare());
+		return getCapacity(getCurrentMipsShareArray());
 	}
 
 	/*
@@ -523,7 +571,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	@Override
 	public double getCurrentRequestedUtilizationOfRam() {
 		double ram = 0;
-		for (ResCloudlet cloudlet : cloudletExecList) {
+		for (ResCloudlet cloudlet : getCloudletExecList()) {
 			ram += cloudlet.getCloudlet().getUtilizationOfRam(CloudSim.clock());
 		}
 		return ram;
@@ -532,7 +580,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	@Override
 	public double getCurrentRequestedUtilizationOfBw() {
 		double bw = 0;
-		for (ResCloudlet cloudlet : cloudletExecList) {
+		for (ResCloudlet cloudlet : getCloudletExecList()) {
 			bw += cloudlet.getCloudlet().getUtilizationOfBw(CloudSim.clock());
 		}
 		return bw;
@@ -451,7 +451,7 @@ public class Datacenter extends SimEntity {
 			}
 
 			vm.updateVmProcessing(CloudSim.clock(), getVmAllocationPolicy().getHost(vm).getVmScheduler()
-					.getAllocatedMipsForVm(vm));
+					.getAllocatedMipsArrayForVm(vm));
 		}
 
 	}
@@ -8,7 +8,9 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.lists.PeList;
@@ -44,6 +46,9 @@ public class Host {
 	/** The vm list. */
 	private final List<? extends Vm> vmList = new ArrayList<Vm>();
 
+	/** The vms in the vm list, keyed by {@link Vm#getKey()}. */
+	private final Map<Long, Vm> vmMap = new HashMap<Long, Vm>();
+
 	/** The pe list. */
 	private List<? extends Pe> peList;
 
@@ -96,7 +101,7 @@ public class Host {
 		double smallerTime = Double.MAX_VALUE;
 
 		for (Vm vm : getVmList()) {
-			double time = vm.updateVmProcessing(currentTime, getVmScheduler().getAllocatedMipsForVm(vm));
+			double time = vm.updateVmProcessing(currentTime, getVmScheduler().getAllocatedMipsArrayForVm(vm));
 			if (time > 0.0 && time < smallerTime) {
 				smallerTime = time;
 			}
@@ -132,7 +137,7 @@ public class Host {
 				System.exit(0);
 			}
 
-			getVmScheduler().getVmsMigratingIn().add(vm.getUid());
+			getVmScheduler().getVmsMigratingIn().add(vm.getKey());
 			if (!getVmScheduler().allocatePesForVm(vm, vm.getCurrentRequestedMips())) {
 				Log.printLine("[VmScheduler.addMigratingInVm] Allocation of VM #" + vm.getId() + " to Host #"
 						+ getId() + " failed by MIPS");
@@ -143,6 +148,7 @@ public class Host {
 
 			getVmsMigratingIn().add(vm);
 			getVmList().add(vm);
+			vmMap.put(vm.getKey(), vm);
 			updateVmsProcessing(CloudSim.clock());
 			vm.getHost().updateVmsProcessing(CloudSim.clock());
 		}
@@ -157,7 +163,8 @@ public class Host {
 		vmDeallocate(vm);
 		getVmsMigratingIn().remove(vm);
 		getVmList().remove(vm);
-		getVmScheduler().getVmsMigratingIn().remove(vm.getUid());
+		vmMap.remove(vm.getKey());
+		getVmScheduler().getVmsMigratingIn().remove(vm.getKey());
 		vm.setInMigration(false);
 	}
 
@@ -168,9 +175,10 @@ public class Host {
 		for (Vm vm : getVmsMigratingIn()) {
 			if (!getVmList().contains(vm)) {
 				getVmList().add(vm);
+				vmMap.put(vm.getKey(), vm);
 			}
-			if (!getVmScheduler().getVmsMigratingIn().contains(vm.getUid())) {
-				getVmScheduler().getVmsMigratingIn().add(vm.getUid());
+			if (!getVmScheduler().getVmsMigratingIn().contains(vm.getKey())) {
+				getVmScheduler().getVmsMigratingIn().add(vm.getKey());
 			}
 			getRamProvisioner().allocateRamForVm(vm, vm.getCurrentRequestedRam());
 			getBwProvisioner().allocateBwForVm(vm, vm.getCurrentRequestedBw());
@@ -230,6 +238,7 @@ public class Host {
 
 		setStorage(getStorage() - vm.getSize());
 		getVmList().add(vm);
+		vmMap.put(vm.getKey(), vm);
 		vm.setHost(this);
 		return true;
 	}
@@ -245,6 +254,7 @@ public class Host {
 		if (vm != null) {
 			vmDeallocate(vm);
 			getVmList().remove(vm);
+			vmMap.remove(vm.getKey());
 			vm.setHost(null);
 		}
 	}
@@ -262,6 +272,7 @@ public class Host {
 			setStorage(getStorage() + vm.getSize());
 		}
 		getVmList().clear();
+		vmMap.clear();
 	}
 
 	/**
@@ -295,12 +306,7 @@ public class Host {
 	 * @post $none
 	 */
 	public Vm getVm(int vmId, int userId) {
-		for (Vm vm : getVmList()) {
-			if (vm.getId() == vmId && vm.getUserId() == userId) {
-				return vm;
-			}
-		}
-		return null;
+		return vmMap.get(Vm.getKey(userId, vmId));
 	}
 
 	/**
@@ -480,6 +480,17 @@ public class ResCloudlet {
 		cloudletFinishedSoFar += miLength;
 	}
 
+	/**
+	 * Gets the length of this cloudlet that has been completed.
+	 * 
+	 * @return cloudlet length in Instructions (I)
+	 * @pre $none
+	 * @post $result >= 0
+	 */
+	public long getCloudletFinishedSoFar() {
+		return cloudletFinishedSoFar;
+	}
+
 	/**
 	 * Gets arrival time of a cloudlet.
 	 * 
@@ -11,6 +11,8 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.cloudbus.cloudsim.util.MathUtil;
+
 /**
  * Vm represents a VM: it runs inside a Host, sharing hostList with other VMs. It processes
  * cloudlets. This processing happens according to a policy, defined by the CloudletScheduler. Each
@@ -139,6 +141,21 @@ public class Vm {
 	 * @post $none
 	 */
 	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+		return updateVmProcessing(currentTime, mipsShare == null ? null : MathUtil.listToArray(mipsShare));
+	}
+
+	/**
+	 * Updates the processing of cloudlets running on this VM.
+	 * 
+	 * @param currentTime current simulation time
+	 * @param mipsShare array with MIPS share of each Pe available to the scheduler, which must not
+	 *            be modified afterwards
+	 * @return time predicted completion time of the earliest finishing cloudlet, or 0 if there is no
+	 *         next events
+	 * @pre currentTime >= 0
+	 * @post $none
+	 */
+	public double updateVmProcessing(double currentTime, double[] mipsShare) {
 		if (mipsShare != null) {
 			return getCloudletScheduler().updateVmProcessing(currentTime, mipsShare);
 		}
@@ -262,6 +279,48 @@ public class Vm {
 		return userId + "-" + vmId;
 	}
 
+	/**
+	 * Gets the key of the VM, its user id and id packed in a long. Unlike the uid, the key is
+	 * unique without building a string.
+	 * 
+	 * @return the key
+	 */
+	public long getKey() {
+		return getKey(getUserId(), getId());
+	}
+
+	/**
+	 * Packs the user id and id of a VM in a long.
+	 * 
+	 * @param userId the user id
+	 * @param vmId the vm id
+	 * @return the key
+	 */
+	public static long getKey(int userId, int vmId) {
+		return ((long) userId << 32) | (vmId & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Gets the key of a VM from its uid.
+	 * 
+	 * @param uid the uid, as built by {@link #getUid(int, int)}
+	 * @return the key
+	 */
+	public static long getKey(String uid) {
+		int separator = uid.indexOf('-', 1);
+		return getKey(Integer.parseInt(uid.substring(0, separator)), Integer.parseInt(uid.substring(separator + 1)));
+	}
+
+	/**
+	 * Gets the uid of a VM from its key.
+	 * 
+	 * @param key the key
+	 * @return the uid
+	 */
+	public static String getUid(long key) {
+		return getUid((int) (key >> 32), (int) key);
+	}
+
 	/**
 	 * Gets the id.
 	 * 
@@ -9,7 +9,9 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,15 +27,21 @@ import org.cloudbus.cloudsim.core.CloudSim;
  */
 public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
-	/** The vm table. */
-	private Map<String, Host> vmTable;
+	/** The host of each vm, keyed by {@link Vm#getKey()}. */
+	private Map<Long, Host> vmTable;
 
-	/** The used pes. */
-	private Map<String, Integer> usedPes;
+	/** The pes used by each vm, keyed by {@link Vm#getKey()}. */
+	private Map<Long, Integer> usedPes;
 
 	/** The free pes. */
 	private List<Integer> freePes;
 
+	/** The index of each host in the host list. */
+	private final Map<Host, Integer> hostIndex;
+
+	/** The hosts ordered by free pes. */
+	private final FreePesHeap freePesHeap;
+
 	/**
 	 * Creates the new VmAllocationPolicySimple object.
 	 * 
@@ -45,13 +53,16 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 		super(list);
 
 		setFreePes(new ArrayList<Integer>());
+		hostIndex = new IdentityHashMap<Host, Integer>();
 		for (Host host : getHostList()) {
+			hostIndex.put(host, getFreePes().size());
 			getFreePes().add(host.getNumberOfPes());
 
 		}
+		freePesHeap = new FreePesHeap(getFreePes());
 
-		setVmTable(new HashMap<String, Host>());
-		setUsedPes(new HashMap<String, Integer>());
+		setVmTable(new HashMap<Long, Host>());
+		setUsedPes(new HashMap<Long, Integer>());
 	}
 
 	/**
@@ -66,40 +77,34 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	public boolean allocateHostForVm(Vm vm) {
 		int requiredPes = vm.getNumberOfPes();
 		boolean result = false;
-		int tries = 0;
-		List<Integer> freePesTmp = new ArrayList<Integer>();
-		for (Integer freePes : getFreePes()) {
-			freePesTmp.add(freePes);
-		}
-
-		if (!getVmTable().containsKey(vm.getUid())) { // if this vm was not created
-			do {// we still trying until we find a host or until we try all of them
-				int moreFree = Integer.MIN_VALUE;
-				int idx = -1;
 
+		if (!getVmTable().containsKey(vm.getKey())) { // if this vm was not created
+			// we still trying until we find a host or until we try all of them,
+			// the hosts that fail are taken out of the heap until then
+			int[] tried = new int[Math.min(4, getFreePes().size())];
+			int tries = 0;
+			while (!result && freePesHeap.size() > 0) {
 				// we want the host with less pes in use
-				for (int i = 0; i < freePesTmp.size(); i++) {
-					if (freePesTmp.get(i) > moreFree) {
-						moreFree = freePesTmp.get(i);
-						idx = i;
-					}
-				}
+				int idx = freePesHeap.poll();
 
 				Host host = getHostList().get(idx);
 				result = host.vmCreate(vm);
 
 				if (result) { // if vm were succesfully created in the host
-					getVmTable().put(vm.getUid(), host);
-					getUsedPes().put(vm.getUid(), requiredPes);
+					getVmTable().put(vm.getKey(), host);
+					getUsedPes().put(vm.getKey(), requiredPes);
 					getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
-					result = true;
-					break;
+					freePesHeap.add(idx, getFreePes().get(idx));
 				} else {
-					freePesTmp.set(idx, Integer.MIN_VALUE);
+					if (tries == tried.length) {
+						tried = Arrays.copyOf(tried, tries * 2);
+					}
+					tried[tries++] = idx;
 				}
-				tries++;
-			} while (!result && tries < getFreePes().size());
-
+			}
+			for (int i = 0; i < tries; i++) {
+				freePesHeap.add(tried[i], getFreePes().get(tried[i]));
+			}
 		}
 
 		return result;
@@ -114,12 +119,13 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 */
 	@Override
 	public void deallocateHostForVm(Vm vm) {
-		Host host = getVmTable().remove(vm.getUid());
-		int idx = getHostList().indexOf(host);
-		int pes = getUsedPes().remove(vm.getUid());
+		Host host = getVmTable().remove(vm.getKey());
+		int pes = getUsedPes().remove(vm.getKey());
 		if (host != null) {
+			int idx = hostIndex.get(host);
 			host.vmDestroy(vm);
 			getFreePes().set(idx, getFreePes().get(idx) + pes);
+			freePesHeap.update(idx, getFreePes().get(idx));
 		}
 	}
 
@@ -133,7 +139,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 */
 	@Override
 	public Host getHost(Vm vm) {
-		return getVmTable().get(vm.getUid());
+		return getVmTable().get(vm.getKey());
 	}
 
 	/**
@@ -147,7 +153,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 */
 	@Override
 	public Host getHost(int vmId, int userId) {
-		return getVmTable().get(Vm.getUid(userId, vmId));
+		return getVmTable().get(Vm.getKey(userId, vmId));
 	}
 
 	/**
@@ -155,7 +161,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 * 
 	 * @return the vm table
 	 */
-	public Map<String, Host> getVmTable() {
+	public Map<Long, Host> getVmTable() {
 		return vmTable;
 	}
 
@@ -164,7 +170,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 * 
 	 * @param vmTable the vm table
 	 */
-	protected void setVmTable(Map<String, Host> vmTable) {
+	protected void setVmTable(Map<Long, Host> vmTable) {
 		this.vmTable = vmTable;
 	}
 
@@ -173,7 +179,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 * 
 	 * @return the used pes
 	 */
-	protected Map<String, Integer> getUsedPes() {
+	protected Map<Long, Integer> getUsedPes() {
 		return usedPes;
 	}
 
@@ -182,7 +188,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 * 
 	 * @param usedPes the used pes
 	 */
-	protected void setUsedPes(Map<String, Integer> usedPes) {
+	protected void setUsedPes(Map<Long, Integer> usedPes) {
 		this.usedPes = usedPes;
 	}
 
@@ -222,12 +228,13 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	@Override
 	public boolean allocateHostForVm(Vm vm, Host host) {
 		if (host.vmCreate(vm)) { // if vm has been succesfully created in the host
-			getVmTable().put(vm.getUid(), host);
+			getVmTable().put(vm.getKey(), host);
 
 			int requiredPes = vm.getNumberOfPes();
-			int idx = getHostList().indexOf(host);
-			getUsedPes().put(vm.getUid(), requiredPes);
+			int idx = hostIndex.get(host);
+			getUsedPes().put(vm.getKey(), requiredPes);
 			getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
+			freePesHeap.update(idx, getFreePes().get(idx));
 
 			Log.formatLine(
 					"%.2f: VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),
@@ -237,4 +244,135 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
 		return false;
 	}
+	/**
+	 * An indexed max-heap of the hosts by free pes. Hosts with the same free pes are ordered by
+	 * their index in the host list, so the top is the host the linear scan would choose.
+	 */
+	private static class FreePesHeap {
+
+		/** The index of the host at each position of the heap. */
+		private final int[] heap;
+
+		/** The position of each host in the heap, -1 if it is not in the heap. */
+		private final int[] position;
+
+		/** The free pes of each host, as last added or updated. */
+		private final int[] freePes;
+
+		/** The number of hosts in the heap. */
+		private int size;
+
+		private FreePesHeap(List<Integer> freePes) {
+			heap = new int[freePes.size()];
+			position = new int[freePes.size()];
+			this.freePes = new int[freePes.size()];
+			for (int i = 0; i < freePes.size(); i++) {
+				this.freePes[i] = freePes.get(i);
+				heap[i] = i;
+				position[i] = i;
+			}
+			size = freePes.size();
+			for (int i = (size >>> 1) - 1; i >= 0; i--) {
+				siftDown(i);
+			}
+		}
+
+		private int size() {
+			return size;
+		}
+
+		/**
+		 * Removes the host with the most free pes.
+		 * 
+		 * @return the index of the host
+		 */
+		private int poll() {
+			int idx = heap[0];
+			size--;
+			position[idx] = -1;
+			if (size > 0) {
+				heap[0] = heap[size];
+				position[heap[0]] = 0;
+				siftDown(0);
+			}
+			return idx;
+		}
+
+		/**
+		 * Adds a host that is not in the heap.
+		 * 
+		 * @param idx the index of the host
+		 * @param pes the free pes of the host
+		 */
+		private void add(int idx, int pes) {
+			freePes[idx] = pes;
+			heap[size] = idx;
+			position[idx] = size;
+			siftUp(size++);
+		}
+
+		/**
+		 * Updates the free pes of a host, adding it if it is not in the heap.
+		 * 
+		 * @param idx the index of the host
+		 * @param pes the free pes of the host
+		 */
+		private void update(int idx, int pes) {
+			if (position[idx] < 0) {
+				add(idx, pes);
+				return;
+			}
+			freePes[idx] = pes;
+			siftUp(position[idx]);
+			siftDown(position[idx]);
+		}
+
+		/**
+		 * Whether the host at a position goes before the host at another position.
+		 */
+		private boolean before(int pos1, int pos2) {
+			int idx1 = heap[pos1];
+			int idx2 = heap[pos2];
+			if (freePes[idx1] != freePes[idx2]) {
+				return freePes[idx1] > freePes[idx2];
+			}
+			return idx1 < idx2;
+		}
+
+		private void siftUp(int pos) {
+			while (pos > 0) {
+				int parent = (pos - 1) >>> 1;
+				if (!before(pos, parent)) {
+					break;
+				}
+				swap(pos, parent);
+				pos = parent;
+			}
+		}
+
+		private void siftDown(int pos) {
+			int half = size >>> 1;
+			while (pos < half) {
+				int child = 2 * pos + 1;
+				if (child + 1 < size && before(child + 1, child)) {
+					child++;
+				}
+				if (!before(child, pos)) {
+					break;
+				}
+				swap(pos, child);
+				pos = child;
+			}
+		}
+
+		private void swap(int pos1, int pos2) {
+			int idx = heap[pos1];
+			heap[pos1] = heap[pos2];
+			heap[pos2] = idx;
+			position[heap[pos1]] = pos1;
+			position[heap[pos2]] = pos2;
+		}
+
+	}
+
 }
@@ -27,20 +27,23 @@ public abstract class VmScheduler {
 	/** The peList. */
 	private List<? extends Pe> peList;
 
-	/** The map of VMs to PEs. */
-	private Map<String, List<Pe>> peMap;
+	/** The map of VMs to PEs, keyed by {@link Vm#getKey()}. */
+	private Map<Long, List<Pe>> peMap;
 
-	/** The MIPS that are currently allocated to the VMs. */
-	private Map<String, List<Double>> mipsMap;
+	/** The MIPS that are currently allocated to the VMs, keyed by {@link Vm#getKey()}. */
+	private Map<Long, List<Double>> mipsMap;
+
+	/** The MIPS allocated to the VMs as arrays, each built from the list in the mips map. */
+	private final Map<Long, MipsShare> mipsArrayMap;
 
 	/** The total available mips. */
 	private double availableMips;
 
-	/** The VMs migrating in. */
-	private List<String> vmsMigratingIn;
+	/** The keys of the VMs migrating in. */
+	private List<Long> vmsMigratingIn;
 
-	/** The VMs migrating out. */
-	private List<String> vmsMigratingOut;
+	/** The keys of the VMs migrating out. */
+	private List<Long> vmsMigratingOut;
 
 	/**
 	 * Creates a new HostAllocationPolicy.
@@ -51,11 +54,12 @@ public abstract class VmScheduler {
 	 */
 	public VmScheduler(List<? extends Pe> pelist) {
 		setPeList(pelist);
-		setPeMap(new HashMap<String, List<Pe>>());
-		setMipsMap(new HashMap<String, List<Double>>());
+		setPeMap(new HashMap<Long, List<Pe>>());
+		setMipsMap(new HashMap<Long, List<Double>>());
+		mipsArrayMap = new HashMap<Long, MipsShare>();
 		setAvailableMips(PeList.getTotalMips(getPeList()));
-		setVmsMigratingIn(new ArrayList<String>());
-		setVmsMigratingOut(new ArrayList<String>());
+		setVmsMigratingIn(new ArrayList<Long>());
+		setVmsMigratingOut(new ArrayList<Long>());
 	}
 
 	/**
@@ -99,7 +103,7 @@ public abstract class VmScheduler {
 	 * @return the pes allocated for vm
 	 */
 	public List<Pe> getPesAllocatedForVM(Vm vm) {
-		return getPeMap().get(vm.getUid());
+		return getPeMap().get(vm.getKey());
 	}
 
 	/**
@@ -111,7 +115,32 @@ public abstract class VmScheduler {
 	 * @post $none
 	 */
 	public List<Double> getAllocatedMipsForVm(Vm vm) {
-		return getMipsMap().get(vm.getUid());
+		return getMipsMap().get(vm.getKey());
+	}
+
+	/**
+	 * Returns the MIPS share of each Pe that is allocated to a given VM as an array. The array is
+	 * built once for each allocation and must not be modified. Allocations are expected to put a new
+	 * list in the mips map rather than to modify the list in place.
+	 * 
+	 * @param vm the vm
+	 * @return an array containing the amount of MIPS of each pe that is available to the VM, or null
+	 * @pre $none
+	 * @post $none
+	 */
+	public double[] getAllocatedMipsArrayForVm(Vm vm) {
+		Long vmKey = vm.getKey();
+		List<Double> mipsShare = getMipsMap().get(vmKey);
+		if (mipsShare == null) {
+			mipsArrayMap.remove(vmKey);
+			return null;
+		}
+		MipsShare share = mipsArrayMap.get(vmKey);
+		if (share == null || share.list != mipsShare || share.array.length != mipsShare.size()) {
+			share = new MipsShare(mipsShare);
+			mipsArrayMap.put(vmKey, share);
+		}
+		return share.array;
 	}
 
 	/**
@@ -192,7 +221,7 @@ public abstract class VmScheduler {
 	 * 
 	 * @return the mips map
 	 */
-	protected Map<String, List<Double>> getMipsMap() {
+	protected Map<Long, List<Double>> getMipsMap() {
 		return mipsMap;
 	}
 
@@ -201,7 +230,7 @@ public abstract class VmScheduler {
 	 * 
 	 * @param mipsMap the mips map
 	 */
-	protected void setMipsMap(Map<String, List<Double>> mipsMap) {
+	protected void setMipsMap(Map<Long, List<Double>> mipsMap) {
 		this.mipsMap = mipsMap;
 	}
 
@@ -224,11 +253,11 @@ public abstract class VmScheduler {
 	}
 
 	/**
-	 * Gets the vms in migration.
+	 * Gets the keys of the vms in migration.
 	 * 
 	 * @return the vms in migration
 	 */
-	public List<String> getVmsMigratingOut() {
+	public List<Long> getVmsMigratingOut() {
 		return vmsMigratingOut;
 	}
 
@@ -237,16 +266,16 @@ public abstract class VmScheduler {
 	 * 
 	 * @param vmsInMigration the new vms migrating out
 	 */
-	protected void setVmsMigratingOut(List<String> vmsInMigration) {
+	protected void setVmsMigratingOut(List<Long> vmsInMigration) {
 		vmsMigratingOut = vmsInMigration;
 	}
 
 	/**
-	 * Gets the vms migrating in.
+	 * Gets the keys of the vms migrating in.
 	 * 
 	 * @return the vms migrating in
 	 */
-	public List<String> getVmsMigratingIn() {
+	public List<Long> getVmsMigratingIn() {
 		return vmsMigratingIn;
 	}
 
@@ -255,7 +284,7 @@ public abstract class VmScheduler {
 	 * 
 	 * @param vmsMigratingIn the new vms migrating in
 	 */
-	protected void setVmsMigratingIn(List<String> vmsMigratingIn) {
+	protected void setVmsMigratingIn(List<Long> vmsMigratingIn) {
 		this.vmsMigratingIn = vmsMigratingIn;
 	}
 
@@ -264,7 +293,7 @@ public abstract class VmScheduler {
 	 * 
 	 * @return the pe map
 	 */
-	public Map<String, List<Pe>> getPeMap() {
+	public Map<Long, List<Pe>> getPeMap() {
 		return peMap;
 	}
 
@@ -273,8 +302,28 @@ public abstract class VmScheduler {
 	 * 
 	 * @param peMap the pe map
 	 */
-	protected void setPeMap(Map<String, List<Pe>> peMap) {
+	protected void setPeMap(Map<Long, List<Pe>> peMap) {
 		this.peMap = peMap;
 	}
 
+	/**
+	 * The MIPS share of a VM as an array, with the list it is built from.
+	 */
+	private static class MipsShare {
+
+		/** The list in the mips map. */
+		private final List<Double> list;
+
+		/** The MIPS share of each Pe. */
+		private final double[] array;
+
+		private MipsShare(List<Double> list) {
+			this.list = list;
+			array = new double[list.size()];
+			for (int i = 0; i < array.length; i++) {
+				array[i] = list.get(i);
+			}
+		}
+	}
+
 }
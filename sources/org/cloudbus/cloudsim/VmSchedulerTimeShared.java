@@ -28,8 +28,8 @@ import org.cloudbus.cloudsim.provisioners.PeProvisioner;
  */
 public class VmSchedulerTimeShared extends VmScheduler {
 
-	/** The mips map requested. */
-	private Map<String, List<Double>> mipsMapRequested;
+	/** The mips map requested, keyed by {@link Vm#getKey()}. */
+	private Map<Long, List<Double>> mipsMapRequested;
 
 	/** The pes in use. */
 	private int pesInUse;
@@ -41,7 +41,7 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	 */
 	public VmSchedulerTimeShared(List<? extends Pe> pelist) {
 		super(pelist);
-		setMipsMapRequested(new HashMap<String, List<Double>>());
+		setMipsMapRequested(new HashMap<Long, List<Double>>());
 	}
 
 	/*
@@ -53,16 +53,17 @@ public class VmSchedulerTimeShared extends VmScheduler {
 		/**
 		 * TODO: add the same to RAM and BW provisioners
 		 */
+		Long vmKey = vm.getKey();
 		if (vm.isInMigration()) {
-			if (!getVmsMigratingIn().contains(vm.getUid()) && !getVmsMigratingOut().contains(vm.getUid())) {
-				getVmsMigratingOut().add(vm.getUid());
+			if (!getVmsMigratingIn().contains(vmKey) && !getVmsMigratingOut().contains(vmKey)) {
+				getVmsMigratingOut().add(vmKey);
 			}
 		} else {
-			if (getVmsMigratingOut().contains(vm.getUid())) {
-				getVmsMigratingOut().remove(vm.getUid());
+			if (getVmsMigratingOut().contains(vmKey)) {
+				getVmsMigratingOut().remove(vmKey);
 			}
 		}
-		boolean result = allocatePesForVm(vm.getUid(), mipsShareRequested);
+		boolean result = allocatePesForVm(vmKey, mipsShareRequested);
 		updatePeProvisioning();
 		return result;
 	}
@@ -70,11 +71,11 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	/**
 	 * Allocate pes for vm.
 	 * 
-	 * @param vmUid the vm uid
+	 * @param vmKey the vm key
 	 * @param mipsShareRequested the mips share requested
 	 * @return true, if successful
 	 */
-	protected boolean allocatePesForVm(String vmUid, List<Double> mipsShareRequested) {
+	protected boolean allocatePesForVm(Long vmKey, List<Double> mipsShareRequested) {
 		double totalRequestedMips = 0;
 		double peMips = getPeCapacity();
 		for (Double mips : mipsShareRequested) {
@@ -90,27 +91,27 @@ public class VmSchedulerTimeShared extends VmScheduler {
 			return false;
 		}
 
-		getMipsMapRequested().put(vmUid, mipsShareRequested);
+		getMipsMapRequested().put(vmKey, mipsShareRequested);
 		setPesInUse(getPesInUse() + mipsShareRequested.size());
 
-		if (getVmsMigratingIn().contains(vmUid)) {
+		if (getVmsMigratingIn().contains(vmKey)) {
 			// the destination host only experience 10% of the migrating VM's MIPS
 			totalRequestedMips *= 0.1;
 		}
 
 		List<Double> mipsShareAllocated = new ArrayList<Double>();
 		for (Double mipsRequested : mipsShareRequested) {
-			if (getVmsMigratingOut().contains(vmUid)) {
+			if (getVmsMigratingOut().contains(vmKey)) {
 				// performance degradation due to migration = 10% MIPS
 				mipsRequested *= 0.9;
-			} else if (getVmsMigratingIn().contains(vmUid)) {
+			} else if (getVmsMigratingIn().contains(vmKey)) {
 				// the destination host only experience 10% of the migrating VM's MIPS
 				mipsRequested *= 0.1;
 			}
 			mipsShareAllocated.add(mipsRequested);
 		}
 
-		getMipsMap().put(vmUid, mipsShareAllocated);
+		getMipsMap().put(vmKey, mipsShareAllocated);
 		setAvailableMips(getAvailableMips() - totalRequestedMips);
 
 		return true;
@@ -130,26 +131,27 @@ public class VmSchedulerTimeShared extends VmScheduler {
 		PeProvisioner peProvisioner = pe.getPeProvisioner();
 		double availableMips = peProvisioner.getAvailableMips();
 
-		for (Map.Entry<String, List<Double>> entry : getMipsMap().entrySet()) {
-			String vmUid = entry.getKey();
-			getPeMap().put(vmUid, new LinkedList<Pe>());
+		for (Map.Entry<Long, List<Double>> entry : getMipsMap().entrySet()) {
+			Long vmKey = entry.getKey();
+			List<Pe> pes = new LinkedList<Pe>();
+			getPeMap().put(vmKey, pes);
 
 			for (double mips : entry.getValue()) {
 				while (mips >= 0.1) {
 					if (availableMips >= mips) {
-						peProvisioner.allocateMipsForVm(vmUid, mips);
-						getPeMap().get(vmUid).add(pe);
+						peProvisioner.allocateMipsForVm(vmKey, mips);
+						pes.add(pe);
 						availableMips -= mips;
 						break;
 					} else {
-						peProvisioner.allocateMipsForVm(vmUid, availableMips);
-						getPeMap().get(vmUid).add(pe);
+						peProvisioner.allocateMipsForVm(vmKey, availableMips);
+						pes.add(pe);
 						mips -= availableMips;
 						if (mips <= 0.1) {
 							break;
 						}
 						if (!peIterator.hasNext()) {
-							Log.printLine("There is no enough MIPS (" + mips + ") to accommodate VM " + vmUid);
+							Log.printLine("There is no enough MIPS (" + mips + ") to accommodate VM " + Vm.getUid(vmKey));
 							// System.exit(0);
 						}
 						pe = peIterator.next();
@@ -167,7 +169,7 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	 */
 	@Override
 	public void deallocatePesForVm(Vm vm) {
-		getMipsMapRequested().remove(vm.getUid());
+		getMipsMapRequested().remove(vm.getKey());
 		setPesInUse(0);
 		getMipsMap().clear();
 		setAvailableMips(PeList.getTotalMips(getPeList()));
@@ -176,7 +178,7 @@ public class VmSchedulerTimeShared extends VmScheduler {
 			pe.getPeProvisioner().deallocateMipsForVm(vm);
 		}
 
-		for (Map.Entry<String, List<Double>> entry : getMipsMapRequested().entrySet()) {
+		for (Map.Entry<Long, List<Double>> entry : getMipsMapRequested().entrySet()) {
 			allocatePesForVm(entry.getKey(), entry.getValue());
 		}
 
@@ -230,7 +232,7 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	 * 
 	 * @return the mips map requested
 	 */
-	protected Map<String, List<Double>> getMipsMapRequested() {
+	protected Map<Long, List<Double>> getMipsMapRequested() {
 		return mipsMapRequested;
 	}
 
@@ -239,7 +241,7 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	 * 
 	 * @param mipsMapRequested the mips map requested
 	 */
-	protected void setMipsMapRequested(Map<String, List<Double>> mipsMapRequested) {
+	protected void setMipsMapRequested(Map<Long, List<Double>> mipsMapRequested) {
 		this.mipsMapRequested = mipsMapRequested;
 	}
 
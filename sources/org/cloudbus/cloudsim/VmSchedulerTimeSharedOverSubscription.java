@@ -41,12 +41,12 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 	 * Oversubscription results in performance degradation. Each virtual PE cannot be allocated more
 	 * CPU capacity than MIPS of a single PE.
 	 * 
-	 * @param vmUid the vm uid
+	 * @param vmKey the vm key
 	 * @param mipsShareRequested the mips share requested
 	 * @return true, if successful
 	 */
 	@Override
-	protected boolean allocatePesForVm(String vmUid, List<Double> mipsShareRequested) {
+	protected boolean allocatePesForVm(Long vmKey, List<Double> mipsShareRequested) {
 		double totalRequestedMips = 0;
 
 		// if the requested mips is bigger than the capacity of a single PE, we cap
@@ -63,10 +63,10 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 			}
 		}
 
-		getMipsMapRequested().put(vmUid, mipsShareRequested);
+		getMipsMapRequested().put(vmKey, mipsShareRequested);
 		setPesInUse(getPesInUse() + mipsShareRequested.size());
 
-		if (getVmsMigratingIn().contains(vmUid)) {
+		if (getVmsMigratingIn().contains(vmKey)) {
 			// the destination host only experience 10% of the migrating VM's MIPS
 			totalRequestedMips *= 0.1;
 		}
@@ -74,17 +74,17 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 		if (getAvailableMips() >= totalRequestedMips) {
 			List<Double> mipsShareAllocated = new ArrayList<Double>();
 			for (Double mipsRequested : mipsShareRequestedCapped) {
-				if (getVmsMigratingOut().contains(vmUid)) {
+				if (getVmsMigratingOut().contains(vmKey)) {
 					// performance degradation due to migration = 10% MIPS
 					mipsRequested *= 0.9;
-				} else if (getVmsMigratingIn().contains(vmUid)) {
+				} else if (getVmsMigratingIn().contains(vmKey)) {
 					// the destination host only experience 10% of the migrating VM's MIPS
 					mipsRequested *= 0.1;
 				}
 				mipsShareAllocated.add(mipsRequested);
 			}
 
-			getMipsMap().put(vmUid, mipsShareAllocated);
+			getMipsMap().put(vmKey, mipsShareAllocated);
 			setAvailableMips(getAvailableMips() - totalRequestedMips);
 		} else {
 			redistributeMipsDueToOverSubscription();
@@ -102,11 +102,11 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 		// proportionally
 		double totalRequiredMipsByAllVms = 0;
 
-		Map<String, List<Double>> mipsMapCapped = new HashMap<String, List<Double>>();
-		for (Entry<String, List<Double>> entry : getMipsMapRequested().entrySet()) {
+		Map<Long, List<Double>> mipsMapCapped = new HashMap<Long, List<Double>>();
+		for (Entry<Long, List<Double>> entry : getMipsMapRequested().entrySet()) {
 
 			double requiredMipsByThisVm = 0.0;
-			String vmId = entry.getKey();
+			Long vmKey = entry.getKey();
 			List<Double> mipsShareRequested = entry.getValue();
 			List<Double> mipsShareRequestedCapped = new ArrayList<Double>();
 			double peMips = getPeCapacity();
@@ -120,7 +120,7 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 				}
 			}
 
-			mipsMapCapped.put(vmId, mipsShareRequestedCapped);
+			mipsMapCapped.put(vmKey, mipsShareRequestedCapped);
 
 			if (getVmsMigratingIn().contains(entry.getKey())) {
 				// the destination host only experience 10% of the migrating VM's MIPS
@@ -136,18 +136,18 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 		getMipsMap().clear();
 
 		// Update the actual MIPS allocated to the VMs
-		for (Entry<String, List<Double>> entry : mipsMapCapped.entrySet()) {
-			String vmUid = entry.getKey();
+		for (Entry<Long, List<Double>> entry : mipsMapCapped.entrySet()) {
+			Long vmKey = entry.getKey();
 			List<Double> requestedMips = entry.getValue();
 
 			List<Double> updatedMipsAllocation = new ArrayList<Double>();
 			for (Double mips : requestedMips) {
-				if (getVmsMigratingOut().contains(vmUid)) {
+				if (getVmsMigratingOut().contains(vmKey)) {
 					// the original amount is scaled
 					mips *= scalingFactor;
 					// performance degradation due to migration = 10% MIPS
 					mips *= 0.9;
-				} else if (getVmsMigratingIn().contains(vmUid)) {
+				} else if (getVmsMigratingIn().contains(vmKey)) {
 					// the destination host only experiences 10% of the migrating VM's MIPS
 					mips *= 0.1;
 					// the final 10% of the requested MIPS are scaled
@@ -160,7 +160,7 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 			}
 
 			// add in the new map
-			getMipsMap().put(vmUid, updatedMipsAllocation);
+			getMipsMap().put(vmKey, updatedMipsAllocation);
 
 		}
 
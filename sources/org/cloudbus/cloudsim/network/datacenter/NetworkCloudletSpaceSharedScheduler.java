@@ -87,13 +87,13 @@ public class NetworkCloudletSpaceSharedScheduler extends CloudletScheduler {
 	 * @post $none
 	 */
 	@Override
-	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+	public double updateVmProcessing(double currentTime, double[] mipsShare) {
 		setCurrentMipsShare(mipsShare);
 		// update
 		double capacity = 0.0;
 		int cpus = 0;
 
-		for (Double mips : mipsShare) { // count the CPUs available to the VMM
+		for (double mips : mipsShare) { // count the CPUs available to the VMM
 			capacity += mips;
 			if (mips > 0) {
 				cpus++;
@@ -451,7 +451,7 @@ public class NetworkCloudletSpaceSharedScheduler extends CloudletScheduler {
 				// calculate the expected time for cloudlet completion
 				double capacity = 0.0;
 				int cpus = 0;
-				for (Double mips : getCurrentMipsShare()) {
+				for (double mips : getCurrentMipsShareArray()) {
 					capacity += mips;
 					if (mips > 0) {
 						cpus++;
@@ -515,7 +515,7 @@ public class NetworkCloudletSpaceSharedScheduler extends CloudletScheduler {
 		// calculate the expected time for cloudlet completion
 		double capacity = 0.0;
 		int cpus = 0;
-		for (Double mips : getCurrentMipsShare()) {
+		for (double mips : getCurrentMipsShareArray()) {
 			capacity += mips;
 			if (mips > 0) {
 				cpus++;
@@ -736,8 +736,8 @@ public class NetworkCloudletSpaceSharedScheduler extends CloudletScheduler {
 	@Override
 	public List<Double> getCurrentRequestedMips() {
 		List<Double> mipsShare = new ArrayList<Double>();
-		if (getCurrentMipsShare() != null) {
-			for (Double mips : getCurrentMipsShare()) {
+		if (getCurrentMipsShareArray() != null) {
+			for (double mips : getCurrentMipsShareArray()) {
 				mipsShare.add(mips);
 			}
 		}
@@ -753,7 +753,7 @@ public class NetworkCloudletSpaceSharedScheduler extends CloudletScheduler {
 	public double getTotalCurrentAvailableMipsForCloudlet(ResCloudlet rcl, List<Double> mipsShare) {
 		double capacity = 0.0;
 		int cpus = 0;
-		for (Double mips : mipsShare) { // count the cpus available to the vmm
+		for (double mips : mipsShare) { // count the cpus available to the vmm
 			capacity += mips;
 			if (mips > 0) {
 				cpus++;
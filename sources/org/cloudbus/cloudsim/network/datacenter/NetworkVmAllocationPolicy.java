@@ -30,11 +30,11 @@ import org.cloudbus.cloudsim.core.CloudSim;
  */
 public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 
-	/** The vm table. */
-	private Map<String, Host> vmTable;
+	/** The host of each vm, keyed by {@link Vm#getKey()}. */
+	private Map<Long, Host> vmTable;
 
-	/** The used pes. */
-	private Map<String, Integer> usedPes;
+	/** The pes used by each vm, keyed by {@link Vm#getKey()}. */
+	private Map<Long, Integer> usedPes;
 
 	/** The free pes. */
 	private List<Integer> freePes;
@@ -56,8 +56,8 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 
 		}
 
-		setVmTable(new HashMap<String, Host>());
-		setUsedPes(new HashMap<String, Integer>());
+		setVmTable(new HashMap<Long, Host>());
+		setUsedPes(new HashMap<Long, Integer>());
 	}
 
 	/**
@@ -81,7 +81,7 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 			freePesTmp.add(freePes);
 		}
 
-		if (!getVmTable().containsKey(vm.getUid())) { // if this vm was not created
+		if (!getVmTable().containsKey(vm.getKey())) { // if this vm was not created
 			do {// we still trying until we find a host or until we try all of them
 				int moreFree = Integer.MIN_VALUE;
 				int idx = -1;
@@ -98,8 +98,8 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 				result = host.vmCreate(vm);
 
 				if (result) { // if vm were succesfully created in the host
-					getVmTable().put(vm.getUid(), host);
-					getUsedPes().put(vm.getUid(), requiredPes);
+					getVmTable().put(vm.getKey(), host);
+					getUsedPes().put(vm.getKey(), requiredPes);
 					getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
 					result = true;
 					break;
@@ -147,9 +147,9 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 	 */
 	@Override
 	public void deallocateHostForVm(Vm vm) {
-		Host host = getVmTable().remove(vm.getUid());
+		Host host = getVmTable().remove(vm.getKey());
 		int idx = getHostList().indexOf(host);
-		int pes = getUsedPes().remove(vm.getUid());
+		int pes = getUsedPes().remove(vm.getKey());
 		if (host != null) {
 			host.vmDestroy(vm);
 			getFreePes().set(idx, getFreePes().get(idx) + pes);
@@ -168,7 +168,7 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 	 */
 	@Override
 	public Host getHost(Vm vm) {
-		return getVmTable().get(vm.getUid());
+		return getVmTable().get(vm.getKey());
 	}
 
 	/**
@@ -184,7 +184,7 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 	 */
 	@Override
 	public Host getHost(int vmId, int userId) {
-		return getVmTable().get(Vm.getUid(userId, vmId));
+		return getVmTable().get(Vm.getKey(userId, vmId));
 	}
 
 	/**
@@ -192,7 +192,7 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 	 * 
 	 * @return the vm table
 	 */
-	public Map<String, Host> getVmTable() {
+	public Map<Long, Host> getVmTable() {
 		return vmTable;
 	}
 
@@ -201,7 +201,7 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 	 * 
 	 * @param vmTable the vm table
 	 */
-	protected void setVmTable(Map<String, Host> vmTable) {
+	protected void setVmTable(Map<Long, Host> vmTable) {
 		this.vmTable = vmTable;
 	}
 
@@ -210,7 +210,7 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 	 * 
 	 * @return the used pes
 	 */
-	protected Map<String, Integer> getUsedPes() {
+	protected Map<Long, Integer> getUsedPes() {
 		return usedPes;
 	}
 
@@ -219,7 +219,7 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 	 * 
 	 * @param usedPes the used pes
 	 */
-	protected void setUsedPes(Map<String, Integer> usedPes) {
+	protected void setUsedPes(Map<Long, Integer> usedPes) {
 		this.usedPes = usedPes;
 	}
 
@@ -259,11 +259,11 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 	@Override
 	public boolean allocateHostForVm(Vm vm, Host host) {
 		if (host.vmCreate(vm)) { // if vm has been succesfully created in the host
-			getVmTable().put(vm.getUid(), host);
+			getVmTable().put(vm.getKey(), host);
 
 			int requiredPes = vm.getNumberOfPes();
 			int idx = getHostList().indexOf(host);
-			getUsedPes().put(vm.getUid(), requiredPes);
+			getUsedPes().put(vm.getKey(), requiredPes);
 			getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
 
 			Log.formatLine(
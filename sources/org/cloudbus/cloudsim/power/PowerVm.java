@@ -89,7 +89,7 @@ public class PowerVm extends Vm {
 	 * @post $none
 	 */
 	@Override
-	public double updateVmProcessing(final double currentTime, final List<Double> mipsShare) {
+	public double updateVmProcessing(final double currentTime, final double[] mipsShare) {
 		double time = super.updateVmProcessing(currentTime, mipsShare);
 		if (currentTime > getPreviousTime() && (currentTime - 0.1) % getSchedulingInterval() == 0) {
 			double utilization = getTotalUtilizationOfCpu(getCloudletScheduler().getPreviousTime());
@@ -34,8 +34,8 @@ import org.cloudbus.cloudsim.core.CloudSim;
  */
 public abstract class PowerVmAllocationPolicyAbstract extends VmAllocationPolicy {
 
-	/** The vm table. */
-	private final Map<String, Host> vmTable = new HashMap<String, Host>();
+	/** The host of each vm, keyed by {@link Vm#getKey()}. */
+	private final Map<Long, Host> vmTable = new HashMap<Long, Host>();
 
 	/**
 	 * Instantiates a new power vm allocation policy abstract.
@@ -67,7 +67,7 @@ public abstract class PowerVmAllocationPolicyAbstract extends VmAllocationPolicy
 			return false;
 		}
 		if (host.vmCreate(vm)) { // if vm has been succesfully created in the host
-			getVmTable().put(vm.getUid(), host);
+			getVmTable().put(vm.getKey(), host);
 			Log.formatLine(
 					"%.2f: VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),
 					CloudSim.clock());
@@ -100,7 +100,7 @@ public abstract class PowerVmAllocationPolicyAbstract extends VmAllocationPolicy
 	 */
 	@Override
 	public void deallocateHostForVm(Vm vm) {
-		Host host = getVmTable().remove(vm.getUid());
+		Host host = getVmTable().remove(vm.getKey());
 		if (host != null) {
 			host.vmDestroy(vm);
 		}
@@ -112,7 +112,7 @@ public abstract class PowerVmAllocationPolicyAbstract extends VmAllocationPolicy
 	 */
 	@Override
 	public Host getHost(Vm vm) {
-		return getVmTable().get(vm.getUid());
+		return getVmTable().get(vm.getKey());
 	}
 
 	/*
@@ -121,7 +121,7 @@ public abstract class PowerVmAllocationPolicyAbstract extends VmAllocationPolicy
 	 */
 	@Override
 	public Host getHost(int vmId, int userId) {
-		return getVmTable().get(Vm.getUid(userId, vmId));
+		return getVmTable().get(Vm.getKey(userId, vmId));
 	}
 
 	/**
@@ -129,7 +129,7 @@ public abstract class PowerVmAllocationPolicyAbstract extends VmAllocationPolicy
 	 * 
 	 * @return the vm table
 	 */
-	public Map<String, Host> getVmTable() {
+	public Map<Long, Host> getVmTable() {
 		return vmTable;
 	}
 
@@ -65,6 +65,19 @@ public abstract class PeProvisioner {
 	 */
 	public abstract boolean allocateMipsForVm(String vmUid, double mips);
 
+	/**
+	 * Allocates MIPS for a given VM.
+	 * 
+	 * @param vmKey the vm key, as returned by {@link Vm#getKey()}
+	 * @param mips the mips
+	 * 
+	 * @return $true if the MIPS could be allocated; $false otherwise
+	 * 
+	 * @pre $none
+	 * @post $none
+	 */
+	public abstract boolean allocateMipsForVm(long vmKey, double mips);
+
 	/**
 	 * Allocates MIPS for a given VM.
 	 * 
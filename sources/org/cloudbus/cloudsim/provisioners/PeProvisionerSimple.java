@@ -23,8 +23,8 @@ import org.cloudbus.cloudsim.Vm;
  */
 public class PeProvisionerSimple extends PeProvisioner {
 
-	/** The pe table. */
-	private Map<String, List<Double>> peTable;
+	/** The pe table, keyed by {@link Vm#getKey()}. */
+	private Map<Long, List<Double>> peTable;
 
 	/**
 	 * Creates the PeProvisionerSimple object.
@@ -36,7 +36,7 @@ public class PeProvisionerSimple extends PeProvisioner {
 	 */
 	public PeProvisionerSimple(double availableMips) {
 		super(availableMips);
-		setPeTable(new HashMap<String, ArrayList<Double>>());
+		setPeTable(new HashMap<Long, ArrayList<Double>>());
 	}
 
 	/*
@@ -45,7 +45,7 @@ public class PeProvisionerSimple extends PeProvisioner {
 	 */
 	@Override
 	public boolean allocateMipsForVm(Vm vm, double mips) {
-		return allocateMipsForVm(vm.getUid(), mips);
+		return allocateMipsForVm(vm.getKey(), mips);
 	}
 
 	/*
@@ -54,22 +54,29 @@ public class PeProvisionerSimple extends PeProvisioner {
 	 */
 	@Override
 	public boolean allocateMipsForVm(String vmUid, double mips) {
+		return allocateMipsForVm(Vm.getKey(vmUid), mips);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see cloudsim.provisioners.PeProvisioner#allocateMipsForVm(long, double)
+	 */
+	@Override
+	public boolean allocateMipsForVm(long vmKey, double mips) {
 		if (getAvailableMips() < mips) {
 			return false;
 		}
 
-		List<Double> allocatedMips;
+		List<Double> allocatedMips = getPeTable().get(vmKey);
 
-		if (getPeTable().containsKey(vmUid)) {
-			allocatedMips = getPeTable().get(vmUid);
-		} else {
+		if (allocatedMips == null) {
 			allocatedMips = new ArrayList<Double>();
+			getPeTable().put(vmKey, allocatedMips);
 		}
 
 		allocatedMips.add(mips);
 
 		setAvailableMips(getAvailableMips() - mips);
-		getPeTable().put(vmUid, allocatedMips);
 
 		return true;
 	}
@@ -92,7 +99,7 @@ public class PeProvisionerSimple extends PeProvisioner {
 
 		setAvailableMips(getAvailableMips() + getTotalAllocatedMipsForVm(vm) - totalMipsToAllocate);
 
-		getPeTable().put(vm.getUid(), mips);
+		getPeTable().put(vm.getKey(), mips);
 
 		return true;
 	}
@@ -115,9 +122,9 @@ public class PeProvisionerSimple extends PeProvisioner {
 	 */
 	@Override
 	public double getAllocatedMipsForVmByVirtualPeId(Vm vm, int peId) {
-		if (getPeTable().containsKey(vm.getUid())) {
+		if (getPeTable().containsKey(vm.getKey())) {
 			try {
-				return getPeTable().get(vm.getUid()).get(peId);
+				return getPeTable().get(vm.getKey()).get(peId);
 			} catch (Exception e) {
 			}
 		}
@@ -130,8 +137,8 @@ public class PeProvisionerSimple extends PeProvisioner {
 	 */
 	@Override
 	public List<Double> getAllocatedMipsForVm(Vm vm) {
-		if (getPeTable().containsKey(vm.getUid())) {
-			return getPeTable().get(vm.getUid());
+		if (getPeTable().containsKey(vm.getKey())) {
+			return getPeTable().get(vm.getKey());
 		}
 		return null;
 	}
@@ -142,9 +149,9 @@ public class PeProvisionerSimple extends PeProvisioner {
 	 */
 	@Override
 	public double getTotalAllocatedMipsForVm(Vm vm) {
-		if (getPeTable().containsKey(vm.getUid())) {
+		if (getPeTable().containsKey(vm.getKey())) {
 			double totalAllocatedMips = 0.0;
-			for (double mips : getPeTable().get(vm.getUid())) {
+			for (double mips : getPeTable().get(vm.getKey())) {
 				totalAllocatedMips += mips;
 			}
 			return totalAllocatedMips;
@@ -158,11 +165,11 @@ public class PeProvisionerSimple extends PeProvisioner {
 	 */
 	@Override
 	public void deallocateMipsForVm(Vm vm) {
-		if (getPeTable().containsKey(vm.getUid())) {
-			for (double mips : getPeTable().get(vm.getUid())) {
+		if (getPeTable().containsKey(vm.getKey())) {
+			for (double mips : getPeTable().get(vm.getKey())) {
 				setAvailableMips(getAvailableMips() + mips);
 			}
-			getPeTable().remove(vm.getUid());
+			getPeTable().remove(vm.getKey());
 		}
 	}
 
@@ -171,7 +178,7 @@ public class PeProvisionerSimple extends PeProvisioner {
 	 * 
 	 * @return the peTable
 	 */
-	protected Map<String, List<Double>> getPeTable() {
+	protected Map<Long, List<Double>> getPeTable() {
 		return peTable;
 	}
 
@@ -181,8 +188,8 @@ public class PeProvisionerSimple extends PeProvisioner {
 	 * @param peTable the peTable to set
 	 */
 	@SuppressWarnings("unchecked")
-	protected void setPeTable(Map<String, ? extends List<Double>> peTable) {
-		this.peTable = (Map<String, List<Double>>) peTable;
+	protected void setPeTable(Map<Long, ? extends List<Double>> peTable) {
+		this.peTable = (Map<Long, List<Double>>) peTable;
 	}
 
 }
@@ -24,6 +24,7 @@ import org.cloudbus.cloudsim.core.SimEvent;
 import org.workflowsim.clustering.BasicClustering;
 import org.workflowsim.clustering.BlockClustering;
 import org.workflowsim.clustering.HorizontalClustering;
+import org.workflowsim.clustering.MakespanEstimator;
 import org.workflowsim.clustering.VerticalClustering;
 import org.workflowsim.clustering.balancing.BalancedClustering;
 import org.workflowsim.utils.ClusteringParameters;
@@ -170,6 +171,23 @@ public final class ClusteringEngine extends SimEntity {
             case BALANCED:
                 this.engine = new BalancedClustering(params.getClustersNum());
                 break;
+            /**
+             * Perform Horizontal Clustering with the clusters.num that has the
+             * minimal estimated makespan. If clusters.num is set it is the
+             * upper bound of the search
+             */
+            case AUTO:
+                MakespanEstimator estimator = new MakespanEstimator(getTaskList(),
+                        getWorkflowEngine().getAllVmList(), Parameters.getOverheadParams());
+                this.engine = new HorizontalClustering(estimator.search(params.getClustersNum()), 0);
+                break;
+            /**
+             * Online clustering merges jobs when they are released by the
+             * WorkflowEngine, so nothing is merged here
+             */
+            case ONLINE:
+                this.engine = new BasicClustering();
+                break;
             /**
              * By default, it does no clustering
              */
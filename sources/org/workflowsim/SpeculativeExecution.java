@@ -0,0 +1,417 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.QuantileEstimator;
+
+/**
+ * SpeculativeExecution keeps the runtime statistics of each task type online
+ * and finds the jobs that straggle. A job straggles once it has run longer
+ * than the sum of the speculation quantile of the runtimes of its tasks. A
+ * straggler gets a backup copy that has the same id, tasks and dependencies,
+ * so that whichever copy finishes first can be returned to the workflow
+ * engine. A copy is told apart from the other one by its reference.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class SpeculativeExecution {
+
+    /**
+     * The runtime statistics of each task type
+     */
+    private final Map<String, QuantileEstimator> type2Estimator;
+    /**
+     * The length of the jobs being watched, before the datacenter adds the
+     * time of its data transfers
+     */
+    private final Map<Job, Long> job2Length;
+    /**
+     * The threshold of the jobs being watched
+     */
+    private final Map<Job, Double> job2Threshold;
+    /**
+     * The jobs being watched that have no threshold yet
+     */
+    private final List<Job> pending;
+    /**
+     * The jobs that straggle and wait for an idle vm
+     */
+    private final List<Job> stragglers;
+    /**
+     * Each running copy of a job mapped to the other copy
+     */
+    private final Map<Job, Job> copies;
+    /**
+     * Each backup copy mapped to its original job
+     */
+    private final Map<Job, Job> originals;
+    /**
+     * The copies that are cancelled but whose vm is not released yet
+     */
+    private final Set<Job> cancelled;
+
+    /**
+     * Initialize a SpeculativeExecution
+     */
+    public SpeculativeExecution() {
+        this.type2Estimator = new HashMap<>();
+        this.job2Length = new IdentityHashMap<>();
+        this.job2Threshold = new IdentityHashMap<>();
+        this.pending = new ArrayList<>();
+        this.stragglers = new ArrayList<>();
+        this.copies = new IdentityHashMap<>();
+        this.originals = new IdentityHashMap<>();
+        this.cancelled = Collections.newSetFromMap(new IdentityHashMap<Job, Boolean>());
+    }
+
+    /**
+     * Whether speculative execution is enabled
+     *
+     * @return true if it is
+     */
+    public static boolean isEnabled() {
+        return Parameters.getSpeculationQuantile() > 0.0;
+    }
+
+    /**
+     * Gets the type of a task. A task without a type is of the type of its
+     * depth.
+     *
+     * @param task the task
+     * @return the type
+     */
+    private static String getType(Task task) {
+        if (task.getType() != null) {
+            return task.getType();
+        }
+        return "depth" + task.getDepth();
+    }
+
+    /**
+     * Starts watching a job that is about to be submitted
+     *
+     * @param job the job
+     * @return the threshold of the job, NaN if its task types have not enough
+     * statistics yet
+     */
+    public double watch(Job job) {
+        if (job.getClassType() != Parameters.ClassType.COMPUTE.value
+                || job.getTaskList().isEmpty()) {
+            return Double.NaN;
+        }
+        this.job2Length.put(job, job.getCloudletLength());
+        double threshold = getThreshold(job);
+        if (Double.isNaN(threshold)) {
+            this.pending.add(job);
+        } else {
+            this.job2Threshold.put(job, threshold);
+        }
+        return threshold;
+    }
+
+    /**
+     * Gets the threshold of a job from the statistics of its task types
+     *
+     * @param job the job
+     * @return the threshold, NaN if its task types have not enough statistics
+     */
+    private double getThreshold(Job job) {
+        double threshold = 0.0;
+        for (Task task : job.getTaskList()) {
+            QuantileEstimator estimator = this.type2Estimator.get(getType(task));
+            if (estimator == null) {
+                return Double.NaN;
+            }
+            threshold += estimator.getQuantile();
+        }
+        return threshold;
+    }
+
+    /**
+     * Gets the watched jobs that had no threshold but have one now that more
+     * runtimes are known
+     *
+     * @return the jobs that should be checked
+     */
+    public List<Job> updatePending() {
+        List<Job> list = new ArrayList<>();
+        for (Iterator<Job> it = this.pending.iterator(); it.hasNext();) {
+            Job job = it.next();
+            if (!this.job2Length.containsKey(job)) {
+                it.remove();
+                continue;
+            }
+            double threshold = getThreshold(job);
+            if (!Double.isNaN(threshold)) {
+                it.remove();
+                this.job2Threshold.put(job, threshold);
+                list.add(job);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Checks whether a watched job straggles
+     *
+     * @param job the job
+     * @param time the current time
+     * @return 0 if it straggles, the time until it should be checked again, or
+     * a negative value if it needs not be checked any more
+     */
+    public double check(Job job, double time) {
+        Double threshold = this.job2Threshold.get(job);
+        if (threshold == null) {
+            return -1.0;
+        }
+        switch (job.getCloudletStatus()) {
+            case Cloudlet.INEXEC:
+                double remaining = threshold - (time - job.getExecStartTime());
+                // a remaining time below the clock resolution does not advance it
+                if (remaining > CloudSim.getMinTimeBetweenEvents()) {
+                    return remaining;
+                }
+                this.stragglers.add(job);
+                return 0.0;
+            case Cloudlet.SUCCESS:
+            case Cloudlet.FAILED:
+            case Cloudlet.CANCELED:
+                unwatch(job);
+                return -1.0;
+            default:
+                // it waits in the datacenter
+                return threshold;
+        }
+    }
+
+    /**
+     * Stops watching a job
+     *
+     * @param job the job
+     */
+    private void unwatch(Job job) {
+        this.job2Length.remove(job);
+        this.job2Threshold.remove(job);
+    }
+
+    /**
+     * Gets the jobs that straggle and wait for an idle vm
+     *
+     * @return the stragglers
+     */
+    public List<Job> getStragglers() {
+        return this.stragglers;
+    }
+
+    /**
+     * Whether a straggler can still get a backup copy
+     *
+     * @param job the straggler
+     * @return true if it is still running and has no backup
+     */
+    public boolean needsBackup(Job job) {
+        return job.getCloudletStatus() == Cloudlet.INEXEC
+                && this.job2Threshold.containsKey(job)
+                && !this.copies.containsKey(job);
+    }
+
+    /**
+     * Whether a backup of a straggler on a vm is expected to finish before
+     * the straggler does
+     *
+     * @param job the straggler
+     * @param mips the mips of the vm of the straggler
+     * @param backupMips the mips of the vm of the backup
+     * @param time the current time
+     * @return true if the backup is expected to finish first
+     */
+    public boolean isFaster(Job job, double mips, double backupMips, double time) {
+        double length = this.job2Length.get(job);
+        double remaining = length / mips - (time - job.getExecStartTime());
+        return length / backupMips < remaining;
+    }
+
+    /**
+     * Creates a backup copy of a straggler. The backup has its own tasks so
+     * that the datacenter can run it next to the original.
+     *
+     * @param job the straggler
+     * @return the backup
+     */
+    public Job createBackup(Job job) {
+        Job backup = new Job(job.getCloudletId(), this.job2Length.get(job));
+        backup.setUserId(job.getUserId());
+        backup.setClassType(job.getClassType());
+        backup.setDepth(job.getDepth());
+        backup.setPriority(job.getPriority());
+        List<Task> parentList = new ArrayList<>();
+        for (Object parent : job.getParentList()) {
+            parentList.add((Task) parent);
+        }
+        backup.setParentList(parentList);
+        backup.setChildList(job.getChildList());
+        backup.getFileList().addAll(job.getFileList());
+        List<Task> taskList = new ArrayList<>();
+        for (Task task : job.getTaskList()) {
+            Task copy = new Task(task.getCloudletId(), task.getCloudletLength());
+            copy.setUserId(task.getUserId());
+            copy.setType(task.getType());
+            copy.setDepth(task.getDepth());
+            copy.setPriority(task.getPriority());
+            copy.setImpact(task.getImpact());
+            copy.setFileList(task.getFileList());
+            taskList.add(copy);
+        }
+        backup.setTaskList(taskList);
+        this.copies.put(job, backup);
+        this.copies.put(backup, job);
+        this.originals.put(backup, job);
+        return backup;
+    }
+
+    /**
+     * Hands the results of a backup over to the tasks of its original job and
+     * gives the original tasks back to the backup, so that the engine sees the
+     * tasks of the workflow whichever copy has returned
+     *
+     * @param backup the backup that has returned
+     * @param original the original job
+     */
+    public void restoreTasks(Job backup, Job original) {
+        List<Task> copies = backup.getTaskList();
+        List<Task> taskList = original.getTaskList();
+        try {
+            for (int i = 0; i < taskList.size(); i++) {
+                Task copy = copies.get(i);
+                Task task = taskList.get(i);
+                task.setVmId(backup.getVmId());
+                task.setCloudletLength(copy.getCloudletLength());
+                task.setCheckpointInterval(copy.getCheckpointInterval());
+                task.setExecStartTime(copy.getExecStartTime());
+                task.setTaskFinishTime(copy.getTaskFinishTime());
+                if (backup.getCloudletStatus() == Cloudlet.SUCCESS) {
+                    task.setCloudletStatus(Cloudlet.SUCCESS);
+                } else {
+                    task.setCloudletStatus(copy.getCloudletStatus());
+                }
+            }
+        } catch (Exception e) {
+            Log.printLine("Error in restoring the tasks of job " + original.getCloudletId());
+            e.printStackTrace();
+        }
+        backup.setTaskList(taskList);
+    }
+
+    /**
+     * Gets the original job of a copy
+     *
+     * @param job a copy
+     * @return the original job, the copy itself if it is not a backup
+     */
+    public Job getOriginal(Job job) {
+        Job original = this.originals.get(job);
+        return original == null ? job : original;
+    }
+
+    /**
+     * A copy of a job has returned. The other copy, if still running, is no
+     * longer a copy of it.
+     *
+     * @param job the copy that has returned
+     * @return the other copy that is still running, or null
+     */
+    public Job finish(Job job) {
+        unwatch(getOriginal(job));
+        this.originals.remove(job);
+        Job other = this.copies.remove(job);
+        if (other != null) {
+            this.copies.remove(other);
+        }
+        return other;
+    }
+
+    /**
+     * Marks a copy as cancelled since the other copy has won
+     *
+     * @param job the copy
+     */
+    public void cancel(Job job) {
+        this.originals.remove(job);
+        this.cancelled.add(job);
+    }
+
+    /**
+     * Whether a copy is cancelled and its vm is not released yet
+     *
+     * @param job the copy
+     * @return true if it is
+     */
+    public boolean isCancelled(Job job) {
+        return this.cancelled.contains(job);
+    }
+
+    /**
+     * The vm of a cancelled copy is released
+     *
+     * @param job the copy
+     */
+    public void release(Job job) {
+        this.cancelled.remove(job);
+    }
+
+    /**
+     * Adds the runtime of a job that has completed to the statistics of its
+     * task types. The runtime is split among its tasks by their length.
+     *
+     * @param job the job
+     */
+    public void addRuntime(Job job) {
+        if (job.getClassType() != Parameters.ClassType.COMPUTE.value
+                || job.getTaskList().isEmpty()) {
+            return;
+        }
+        double runtime = job.getFinishTime() - job.getExecStartTime();
+        double length = 0.0;
+        for (Task task : job.getTaskList()) {
+            length += task.getCloudletLength();
+        }
+        for (Task task : job.getTaskList()) {
+            String type = getType(task);
+            QuantileEstimator estimator = this.type2Estimator.get(type);
+            if (estimator == null) {
+                estimator = new QuantileEstimator(Parameters.getSpeculationQuantile());
+                this.type2Estimator.put(type, estimator);
+            }
+            if (length > 0.0) {
+                estimator.add(runtime * task.getCloudletLength() / length);
+            } else {
+                estimator.add(runtime / job.getTaskList().size());
+            }
+        }
+    }
+}
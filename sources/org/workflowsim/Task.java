@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.UtilizationModel;
 import org.cloudbus.cloudsim.UtilizationModelFull;
 
 /**
@@ -34,6 +35,11 @@ import org.cloudbus.cloudsim.UtilizationModelFull;
  */
 public class Task extends Cloudlet {
 
+    /**
+     * The utilization model of all tasks, it has no state and can be shared
+     */
+    private static final UtilizationModel UTILIZATION_MODEL_FULL = new UtilizationModelFull();
+
     /*
      * The list of parent tasks. 
      */
@@ -72,6 +78,12 @@ public class Task extends Cloudlet {
      */
     private double taskFinishTime;
 
+    /**
+     * The checkpoint interval of the current run of this task, 0 means no
+     * checkpoints (see CheckpointModel)
+     */
+    private double checkpointInterval;
+
     /**
      * Allocates a new Task object. The task length should be greater than or
      * equal to 1.
@@ -91,9 +103,10 @@ public class Task extends Cloudlet {
          * added a list to task and thus we don't need a cloudletFileSize or
          * cloudletOutputSize here The utilizationModelCpu, utilizationModelRam,
          * and utilizationModelBw are just set to be the default mode. You can
-         * change it for your own purpose.
+         * change it for your own purpose. The history of a task is not
+         * recorded, since it would take more memory than the task itself.
          */
-        super(taskId, taskLength, 1, 0, 0, new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+        super(taskId, taskLength, 1, 0, 0, UTILIZATION_MODEL_FULL, UTILIZATION_MODEL_FULL, UTILIZATION_MODEL_FULL, false);
 
         this.childList = new ArrayList<>();
         this.parentList = new ArrayList<>();
@@ -297,6 +310,24 @@ public class Task extends Cloudlet {
         return this.taskFinishTime;
     }
 
+    /**
+     * Sets the checkpoint interval of the current run of this task
+     *
+     * @param interval the interval, 0 means no checkpoints
+     */
+    public void setCheckpointInterval(double interval) {
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Gets the checkpoint interval of the current run of this task
+     *
+     * @return the interval, 0 means no checkpoints
+     */
+    public double getCheckpointInterval() {
+        return this.checkpointInterval;
+    }
+
     /**
      * Gets the total cost of processing or executing this task The original
      * getProcessingCost does not take cpu cost into it also the data file in
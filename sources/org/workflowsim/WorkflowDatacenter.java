@@ -15,8 +15,13 @@
  */
 package org.workflowsim;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Consts;
@@ -30,6 +35,9 @@ import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
+import org.workflowsim.failure.CheckpointModel;
+import org.workflowsim.failure.FailureMonitor;
+import org.workflowsim.failure.FailureRecord;
 import org.workflowsim.utils.ReplicaCatalog;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.ClassType;
@@ -45,6 +53,24 @@ import org.workflowsim.utils.Parameters.FileType;
  */
 public class WorkflowDatacenter extends Datacenter {
 
+    /**
+     * The VmFailureInjector of this datacenter, -1 if vms do not fail.
+     */
+    private int vmFailureInjectorId = -1;
+    /**
+     * The vms that are failed.
+     */
+    private final Set<Integer> failedVmIds = new HashSet<>();
+    /**
+     * The jobs submitted to a vm that have not returned yet.
+     */
+    private final Map<Integer, List<Job>> vm2jobs = new HashMap<>();
+    /**
+     * The length (MI) added to a running job for the checkpoints of its
+     * tasks by job id, it is taken off again when the job returns.
+     */
+    private final Map<Integer, Long> job2CheckpointLength = new HashMap<>();
+
     public WorkflowDatacenter(String name,
             DatacenterCharacteristics characteristics,
             VmAllocationPolicy vmAllocationPolicy,
@@ -53,6 +79,183 @@ public class WorkflowDatacenter extends Datacenter {
         super(name, characteristics, vmAllocationPolicy, storageList, schedulingInterval);
     }
 
+    /**
+     * Binds a VmFailureInjector to this datacenter
+     *
+     * @param id the id of the VmFailureInjector
+     */
+    public void setVmFailureInjectorId(int id) {
+        this.vmFailureInjectorId = id;
+    }
+
+    /**
+     * Process the events of vm failures, the others are left to Datacenter
+     *
+     * @param ev a SimEvent object
+     */
+    @Override
+    protected void processOtherEvent(SimEvent ev) {
+        switch (ev.getTag()) {
+            case WorkflowSimTags.VM_FAIL:
+                processVmFail(ev);
+                break;
+            case WorkflowSimTags.VM_RECOVER:
+                processVmRecover(ev);
+                break;
+            default:
+                super.processOtherEvent(ev);
+                break;
+        }
+    }
+
+    /**
+     * Creates a vm and tells the VmFailureInjector it may fail from now on
+     *
+     * @param ev a SimEvent object
+     * @param ack an acknowledgement
+     */
+    @Override
+    protected void processVmCreate(SimEvent ev, boolean ack) {
+        super.processVmCreate(ev, ack);
+        Vm vm = (Vm) ev.getData();
+        if (this.vmFailureInjectorId >= 0 && vm.getHost() != null) {
+            sendNow(this.vmFailureInjectorId, CloudSimTags.VM_CREATE_ACK, vm.getId());
+        }
+    }
+
+    /**
+     * Destroys a vm and tells the VmFailureInjector it does not fail any more
+     *
+     * @param ev a SimEvent object
+     * @param ack an acknowledgement
+     */
+    @Override
+    protected void processVmDestroy(SimEvent ev, boolean ack) {
+        super.processVmDestroy(ev, ack);
+        Vm vm = (Vm) ev.getData();
+        if (this.vmFailureInjectorId >= 0) {
+            sendNow(this.vmFailureInjectorId, CloudSimTags.VM_DESTROY, vm.getId());
+        }
+    }
+
+    /**
+     * Fails a vm. Tells its scheduler first and then aborts the jobs on it.
+     *
+     * @param ev a SimEvent object
+     */
+    protected void processVmFail(SimEvent ev) {
+        int vmId = (Integer) ev.getData();
+        if (!this.failedVmIds.add(vmId)) {
+            return;
+        }
+        //brings the progress of the running jobs up to now
+        updateCloudletProcessing();
+        Vm vm = getVmById(vmId);
+        if (vm == null) {
+            return;
+        }
+        sendNow(vm.getUserId(), WorkflowSimTags.VM_FAIL, vmId);
+        List<Job> jobList = this.vm2jobs.remove(vmId);
+        if (jobList != null) {
+            for (Job job : jobList) {
+                abortJob(job, vm);
+            }
+        }
+    }
+
+    /**
+     * Cancels a job, e.g. the copy of a job that has lost to its backup. It is
+     * no longer tracked on its vm.
+     *
+     * @param cloudletId the job id
+     * @param userId the id of its scheduler
+     * @param vmId the vm id
+     */
+    @Override
+    protected void processCloudletCancel(int cloudletId, int userId, int vmId) {
+        Cloudlet cl = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId, userId)
+                .getCloudletScheduler().cloudletCancel(cloudletId);
+        if (cl != null) {
+            removeCheckpointLength(cl);
+            List<Job> jobList = this.vm2jobs.get(vmId);
+            if (jobList != null) {
+                jobList.remove(cl);
+            }
+        }
+        sendNow(userId, CloudSimTags.CLOUDLET_CANCEL, cl);
+    }
+
+    /**
+     * Recovers a vm
+     *
+     * @param ev a SimEvent object
+     */
+    protected void processVmRecover(SimEvent ev) {
+        int vmId = (Integer) ev.getData();
+        if (!this.failedVmIds.remove(vmId)) {
+            return;
+        }
+        Vm vm = getVmById(vmId);
+        if (vm != null) {
+            sendNow(vm.getUserId(), WorkflowSimTags.VM_RECOVER, vmId);
+        }
+    }
+
+    /**
+     * Gets a vm of this datacenter
+     *
+     * @param vmId the vm id
+     * @return the vm or null if it is not here (any more)
+     */
+    private Vm getVmById(int vmId) {
+        for (Vm vm : getVmList()) {
+            if (vm.getId() == vmId) {
+                return vm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Aborts a job on a failed vm and returns it as failed. The time it has
+     * run so far is wasted and is posted to the FailureMonitor.
+     *
+     * @param job the job
+     * @param vm the failed vm
+     */
+    private void abortJob(Job job, Vm vm) {
+        double clock = CloudSim.clock();
+        double wastedTime = 0.0;
+        if (vm.getCloudletScheduler().cloudletCancel(job.getCloudletId()) != null) {
+            wastedTime = job.getActualCPUTime(getId());
+        }
+        removeCheckpointLength(job);
+        try {
+            job.setCloudletStatus(Cloudlet.FAILED);
+            for (Task task : job.getTaskList()) {
+                task.setCloudletStatus(Cloudlet.FAILED);
+                //the part of the task that has run before the failure
+                double taskTime = 0.0;
+                if (wastedTime > 0.0) {
+                    taskTime = Math.max(0.0, Math.min(clock, task.getTaskFinishTime()) - task.getExecStartTime());
+                    //keeps the work up to the last checkpoint
+                    CheckpointModel.restart(job, task, taskTime);
+                }
+                task.setTaskFinishTime(clock);
+                FailureRecord record = new FailureRecord(taskTime, 1, task.getDepth(), 1,
+                        vm.getId(), task.getCloudletId(), job.getUserId());
+                FailureMonitor.postFailureRecord(record);
+            }
+        } catch (Exception e) {
+            Log.printLine(getName() + ".abortJob(): " + "Exception error.");
+            e.printStackTrace();
+        }
+        job.setTaskFinishTime(clock);
+        Log.printLine(clock + ": " + getName() + ": Job #" + job.getCloudletId()
+                + " is aborted on VM #" + vm.getId() + " after " + wastedTime);
+        sendNow(job.getUserId(), CloudSimTags.CLOUDLET_RETURN, job);
+    }
+
     /**
      * Processes a Cloudlet submission. The cloudlet is actually a job which can
      * be cast to org.workflowsim.Job
@@ -105,6 +308,14 @@ public class WorkflowDatacenter extends Datacenter {
             Host host = getVmAllocationPolicy().getHost(vmId, userId);
             CondorVM vm = (CondorVM) host.getVm(vmId, userId);
 
+            /**
+             * The vm has failed after this job is scheduled
+             */
+            if (this.failedVmIds.contains(vmId)) {
+                abortJob(job, vm);
+                return;
+            }
+
             switch (Parameters.getCostModel()) {
                 case DATACENTER:
                     // process this Cloudlet to this CloudResource
@@ -133,8 +344,32 @@ public class WorkflowDatacenter extends Datacenter {
                 fileTransferTime = processDataStageInForComputeJob(job.getFileList(), job);
             }
 
+            /**
+             * Add the time of checkpoints to the length of the job, so that it
+             * is spent when the job runs, not while it waits in the vm
+             */
+            double checkpointTime = 0.0;
+            for (Task task : job.getTaskList()) {
+                double runtime = task.getCloudletLength() / vm.getMips();
+                task.setCheckpointInterval(CheckpointModel.getInterval(task, vmId, runtime));
+                checkpointTime += CheckpointModel.getOverhead(task, runtime);
+            }
+            long checkpointLength = Math.round(checkpointTime * vm.getMips());
+            if (checkpointLength > 0) {
+                job.setCloudletLength(job.getCloudletLength() + checkpointLength);
+                this.job2CheckpointLength.put(job.getCloudletId(), checkpointLength);
+            }
+
             CloudletScheduler scheduler = vm.getCloudletScheduler();
             double estimatedFinishTime = scheduler.cloudletSubmit(job, fileTransferTime);
+            if (this.vmFailureInjectorId >= 0) {
+                List<Job> jobList = this.vm2jobs.get(vmId);
+                if (jobList == null) {
+                    jobList = new ArrayList<>();
+                    this.vm2jobs.put(vmId, jobList);
+                }
+                jobList.add(job);
+            }
             updateTaskExecTime(job, vm);
 
             // if this cloudlet is in the exec queue
@@ -173,12 +408,26 @@ public class WorkflowDatacenter extends Datacenter {
         for (Task task : job.getTaskList()) {
             task.setExecStartTime(start_time);
             double task_runtime = task.getCloudletLength() / vm.getMips();
+            task_runtime += CheckpointModel.getOverhead(task, task_runtime);
             start_time += task_runtime;
             //Because CloudSim would not let us update end time here
             task.setTaskFinishTime(start_time);
         }
     }
 
+    /**
+     * Takes the length added for checkpoints off a job that returns, so that
+     * a retry of it starts from its own length
+     *
+     * @param cl the job
+     */
+    private void removeCheckpointLength(Cloudlet cl) {
+        Long checkpointLength = this.job2CheckpointLength.remove(cl.getCloudletId());
+        if (checkpointLength != null) {
+            cl.setCloudletLength(cl.getCloudletLength() - checkpointLength);
+        }
+    }
+
     /**
      * Stage in files for a stage-in job. For a local file system (such as
      * condor-io) add files to the local storage; For a shared file system (such
@@ -349,8 +598,13 @@ public class WorkflowDatacenter extends Datacenter {
                 while (vm.getCloudletScheduler().isFinishedCloudlets()) {
                     Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
                     if (cl != null) {
+                        removeCheckpointLength(cl);
                         sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
                         register(cl);
+                        List<Job> jobList = this.vm2jobs.get(vm.getId());
+                        if (jobList != null) {
+                            jobList.remove(cl);
+                        }
                     }
                 }
             }
@@ -17,16 +17,20 @@ package org.workflowsim;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
+import org.workflowsim.clustering.OnlineClustering;
 import org.workflowsim.reclustering.ReclusteringEngine;
+import org.workflowsim.utils.ClusteringParameters;
 import org.workflowsim.utils.Parameters;
 
 /**
@@ -56,6 +60,19 @@ public final class WorkflowEngine extends SimEntity {
      * The job submitted.
      */
     protected int jobsSubmitted;
+    /**
+     * The ids of the jobs that have returned.
+     */
+    protected Set<Integer> jobsReceivedIds;
+    /**
+     * The id of the next retry job, above the id of every job created so far.
+     */
+    private int nextJobId;
+    /**
+     * The online clustering engine. It is null unless clusters.method is
+     * online.
+     */
+    protected OnlineClustering onlineClustering;
     protected List<? extends Vm> vmList;
     /**
      * The associated scheduler id*
@@ -82,6 +99,7 @@ public final class WorkflowEngine extends SimEntity {
         setJobsList(new ArrayList<>());
         setJobsSubmittedList(new ArrayList<>());
         setJobsReceivedList(new ArrayList<>());
+        jobsReceivedIds = new HashSet<>();
 
         jobsSubmitted = 0;
 
@@ -133,6 +151,18 @@ public final class WorkflowEngine extends SimEntity {
      */
     public void submitCloudletList(List<? extends Cloudlet> list) {
         getJobsList().addAll(list);
+        updateNextJobId(list);
+    }
+
+    /**
+     * Moves the id of the next retry job above the ids of the given jobs
+     *
+     * @param list the jobs
+     */
+    private void updateNextJobId(List<? extends Cloudlet> list) {
+        for (Cloudlet cloudlet : list) {
+            nextJobId = Math.max(nextJobId, cloudlet.getCloudletId() + 1);
+        }
     }
 
     /**
@@ -204,6 +234,12 @@ public final class WorkflowEngine extends SimEntity {
     protected void processJobSubmit(SimEvent ev) {
         List<? extends Cloudlet> list = (List) ev.getData();
         setJobsList(list);
+        updateNextJobId(list);
+        ClusteringParameters params = Parameters.getClusteringParameters();
+        if (params != null
+                && params.getClusteringMethod() == ClusteringParameters.ClusteringMethod.ONLINE) {
+            this.onlineClustering = new OnlineClustering();
+        }
     }
 
     /**
@@ -216,10 +252,18 @@ public final class WorkflowEngine extends SimEntity {
     protected void processJobReturn(SimEvent ev) {
 
         Job job = (Job) ev.getData();
+        if (this.onlineClustering != null) {
+            for (Job cJob : this.onlineClustering.complete(job, CloudSim.clock())) {
+                jobsReceivedIds.add(cJob.getCloudletId());
+            }
+        } else {
+            jobsReceivedIds.add(job.getCloudletId());
+        }
         if (job.getCloudletStatus() == Cloudlet.FAILED) {
             // Reclusteringengine will add retry job to jobList
-            int newId = getJobsList().size() + getJobsSubmittedList().size();
-            getJobsList().addAll(ReclusteringEngine.process(job, newId));
+            List<Job> retryList = ReclusteringEngine.process(job, nextJobId);
+            updateNextJobId(retryList);
+            getJobsList().addAll(retryList);
         }
 
         getJobsReceivedList().add(job);
@@ -249,23 +293,6 @@ public final class WorkflowEngine extends SimEntity {
                 + "Error - event unknown by this DatacenterBroker.");
     }
 
-    /**
-     * Checks whether a job list contains a id
-     *
-     * @param jobList the job list
-     * @param id the job id
-     * @return
-     */
-    private boolean hasJobListContainsID(List jobList, int id) {
-        for (Iterator it = jobList.iterator(); it.hasNext();) {
-            Job job = (Job) it.next();
-            if (job.getCloudletId() == id) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * Submit jobs to the created VMs.
      *
@@ -275,7 +302,7 @@ public final class WorkflowEngine extends SimEntity {
     protected void submitJobs() {
 
         List<Job> list = getJobsList();
-        Map<Integer, List> allocationList = new HashMap<>();
+        Map<Integer, List<Job>> allocationList = new HashMap<>();
         for (int i = 0; i < getSchedulers().size(); i++) {
             List<Job> submittedList = new ArrayList<>();
             allocationList.put(getSchedulerId(i), submittedList);
@@ -285,11 +312,11 @@ public final class WorkflowEngine extends SimEntity {
             //at the beginning
             Job job = list.get(i);
             //Dont use job.isFinished() it is not right
-            if (!hasJobListContainsID(this.getJobsReceivedList(), job.getCloudletId())) {
+            if (!jobsReceivedIds.contains(job.getCloudletId())) {
                 List<Job> parentList = job.getParentList();
                 boolean flag = true;
                 for (Job parent : parentList) {
-                    if (!hasJobListContainsID(this.getJobsReceivedList(), parent.getCloudletId())) {
+                    if (!jobsReceivedIds.contains(parent.getCloudletId())) {
                         flag = false;
                         break;
                     }
@@ -299,10 +326,7 @@ public final class WorkflowEngine extends SimEntity {
                  * submit.
                  */
                 if (flag) {
-                    List submittedList = allocationList.get(job.getUserId());
-                    submittedList.add(job);
-                    jobsSubmitted++;
-                    getJobsSubmittedList().add(job);
+                    allocationList.get(job.getUserId()).add(job);
                     list.remove(job);
                     i--;
                     num--;
@@ -310,12 +334,29 @@ public final class WorkflowEngine extends SimEntity {
             }
 
         }
+        /**
+         * Merge the ready jobs based on the overheads measured so far.
+         */
+        for (int i = 0; i < getSchedulers().size(); i++) {
+            List<Job> submittedList = allocationList.get(getSchedulerId(i));
+            if (this.onlineClustering != null && !submittedList.isEmpty()) {
+                submittedList = this.onlineClustering.run(submittedList, getIdleVmNum(i));
+                allocationList.put(getSchedulerId(i), submittedList);
+            }
+            for (Job job : submittedList) {
+                if (this.onlineClustering != null) {
+                    this.onlineClustering.release(job, CloudSim.clock());
+                }
+                jobsSubmitted++;
+                getJobsSubmittedList().add(job);
+            }
+        }
         /**
          * If we have multiple schedulers. Divide them equally.
          */
         for (int i = 0; i < getSchedulers().size(); i++) {
 
-            List submittedList = allocationList.get(getSchedulerId(i));
+            List<Job> submittedList = allocationList.get(getSchedulerId(i));
             //divid it into sublist
 
             int interval = Parameters.getOverheadParams().getWEDInterval();
@@ -348,6 +389,30 @@ public final class WorkflowEngine extends SimEntity {
         }
     }
 
+    /**
+     * Gets the number of idle vms of a scheduler that are not yet claimed by
+     * the jobs waiting in its queue.
+     *
+     * @param index the index of the scheduler
+     * @return the number of idle vms
+     */
+    private int getIdleVmNum(int index) {
+        WorkflowScheduler wfs = getScheduler(index);
+        int idle = 0;
+        for (Object vmObject : wfs.getVmsCreatedList()) {
+            CondorVM vm = (CondorVM) vmObject;
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                idle++;
+            }
+        }
+        idle -= wfs.getCloudletList().size();
+        if (idle <= 0) {
+            //all vms are busy, the jobs will be spread over all of them
+            idle = wfs.getVmsCreatedList().size();
+        }
+        return idle;
+    }
+
     /*
      * (non-Javadoc)
      * @see cloudsim.core.SimEntity#shutdownEntity()
@@ -27,6 +27,7 @@ import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
+import org.workflowsim.utils.ExecutionTrace;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.FileType;
 import org.workflowsim.utils.ReplicaCatalog;
@@ -250,6 +251,17 @@ public final class WorkflowParser {
                         }
                         task.setType(nodeType);
                         task.setUserId(userId);
+                        /**
+                         * Replays the measured runtime if there is one
+                         */
+                        ExecutionTrace trace = Parameters.getExecutionTrace();
+                        if (trace != null) {
+                            double measured = trace.bind(task, nodeName);
+                            if (!Double.isNaN(measured)) {
+                                task.setCloudletLength((long) (Math.max(1000 * measured, 100)
+                                        * Parameters.getRuntimeScale()));
+                            }
+                        }
                         mName2Task.put(nodeName, task);
                         for (FileItem file : mFileList) {
                             task.addRequiredFile(file.getName());
@@ -16,17 +16,27 @@
 package org.workflowsim;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.workflowsim.planning.BasePlanningAlgorithm;
 import org.workflowsim.planning.DHEFTPlanningAlgorithm;
+import org.workflowsim.planning.DeadlinePlanningAlgorithm;
+import org.workflowsim.planning.GeneticPlanningAlgorithm;
 import org.workflowsim.planning.HEFTPlanningAlgorithm;
+import org.workflowsim.planning.PEFTPlanningAlgorithm;
+import org.workflowsim.planning.PlanCache;
 import org.workflowsim.planning.RandomPlanningAlgorithm;
+import org.workflowsim.utils.ClusteringParameters;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.PlanningAlgorithm;
+import org.workflowsim.utils.RandomService;
 
 /**
  * WorkflowPlanner supports dynamic planning. In the future we will have global
@@ -136,7 +146,9 @@ public final class WorkflowPlanner extends SimEntity {
                 getWorkflowParser().parse();
                 setTaskList(getWorkflowParser().getTaskList());
                 processPlanning();
-                processImpactFactors(getTaskList());
+                if (needsImpactFactors()) {
+                    processImpactFactors(getTaskList());
+                }
                 sendNow(getClusteringEngineId(), WorkflowSimTags.JOB_SUBMIT, getTaskList());
                 break;
             case CloudSimTags.END_OF_SIMULATION:
@@ -154,17 +166,81 @@ public final class WorkflowPlanner extends SimEntity {
             return;
         }
         BasePlanningAlgorithm planner = getPlanningAlgorithm(Parameters.getPlanningAlgorithm());
-        
+        List<? extends Vm> vmList = getWorkflowEngine().getAllVmList();
+
+        /**
+         * A random plan is not reused, nor a genetic plan cut by the
+         * wall-clock budget since it depends on the speed of the machine.
+         */
+        String key = null;
+        if (PlanCache.isEnabled() && isPlanReusable()) {
+            key = PlanCache.getKey(getPlannerName(), getTaskList(), vmList);
+            int[] plan = PlanCache.get(key, getTaskList().size());
+            if (plan != null) {
+                for (int i = 0; i < plan.length; i++) {
+                    getTaskList().get(i).setVmId(plan[i]);
+                }
+                Log.printLine("Reusing the cached plan " + key);
+                return;
+            }
+        }
+
         planner.setTaskList(getTaskList());
-        planner.setVmList(getWorkflowEngine().getAllVmList());
+        planner.setVmList(vmList);
         try {
             planner.run();
         } catch (Exception e) {
             Log.printLine("Error in configuring scheduler_method");
             e.printStackTrace();
+            return;
+        }
+
+        if (key != null) {
+            int[] plan = new int[getTaskList().size()];
+            for (int i = 0; i < plan.length; i++) {
+                plan[i] = getTaskList().get(i).getVmId();
+            }
+            PlanCache.put(key, plan);
         }
     }
 
+    /**
+     * Checks whether the plan only depends on the workflow, the vms and the
+     * planner settings
+     *
+     * @return true if the plan can be cached
+     */
+    private boolean isPlanReusable() {
+        PlanningAlgorithm name = Parameters.getPlanningAlgorithm();
+        if (name == PlanningAlgorithm.RANDOM) {
+            return false;
+        }
+        return name != PlanningAlgorithm.GENETIC || Parameters.getPlanningBudget() <= 0;
+    }
+
+    /**
+     * Gets the name of the planner together with the settings that change
+     * its plan
+     *
+     * @return the planner name
+     */
+    private String getPlannerName() {
+        PlanningAlgorithm name = Parameters.getPlanningAlgorithm();
+        if (name == PlanningAlgorithm.GENETIC) {
+            return name + "/" + Parameters.getPopulationSize() + "/" + Parameters.getGenerations()
+                    + "/" + RandomService.getMasterSeed();
+        }
+        if (name == PlanningAlgorithm.DEADLINE) {
+            StringBuilder builder = new StringBuilder(name + "/" + Parameters.getDeadline());
+            for (Vm vmObject : getWorkflowEngine().getAllVmList()) {
+                CondorVM vm = (CondorVM) vmObject;
+                builder.append("/").append(vm.getCost()).append(":").append(vm.getCostPerBW());
+            }
+            return builder.toString();
+        }
+        return name.toString();
+    }
+
     /**
      * Switch between multiple planners. Based on planner.method
      *
@@ -190,6 +266,15 @@ public final class WorkflowPlanner extends SimEntity {
             case DHEFT:
                 planner = new DHEFTPlanningAlgorithm();
                 break;
+            case PEFT:
+                planner = new PEFTPlanningAlgorithm();
+                break;
+            case GENETIC:
+                planner = new GeneticPlanningAlgorithm();
+                break;
+            case DEADLINE:
+                planner = new DeadlinePlanningAlgorithm();
+                break;
             default:
                 planner = null;
                 break;
@@ -197,39 +282,62 @@ public final class WorkflowPlanner extends SimEntity {
         return planner;
     }
 
+    /**
+     * Impact factors are only used by balanced clustering (ImpactFactorVariance
+     * and HorizontalImpactBalancing), so there is no need to compute them
+     * otherwise.
+     *
+     * @return whether balanced clustering is configured
+     */
+    private boolean needsImpactFactors() {
+        ClusteringParameters params = Parameters.getClusteringParameters();
+        return params != null
+                && params.getClusteringMethod() == ClusteringParameters.ClusteringMethod.BALANCED;
+    }
+
     /**
      * Add impact factor for each task. This is useful in task balanced
      * clustering algorithm It is for research purpose and thus it is optional.
      *
+     * The impact of an exit task is 1 / (number of exit tasks) and a task
+     * passes its impact to its parents evenly. Instead of following every
+     * path from the exit tasks, the tasks are visited in reverse topological
+     * order and each task passes its accumulated impact once, which gives the
+     * same values in O(V + E).
+     *
      * @param taskList all the tasks
      */
     private void processImpactFactors(List<Task> taskList) {
-        List<Task> exits = new ArrayList<>();
+        Map<Task, Integer> pending = new IdentityHashMap<>();
+        LinkedList<Task> queue = new LinkedList<>();
         for (Task task : taskList) {
             if (task.getChildList().isEmpty()) {
-                exits.add(task);
+                queue.add(task);
+            } else {
+                pending.put(task, task.getChildList().size());
             }
         }
-        double avg = 1.0 / exits.size();
-        for (Task task : exits) {
-            addImpact(task, avg);
+        double avg = 1.0 / queue.size();
+        for (Task task : queue) {
+            task.setImpact(task.getImpact() + avg);
         }
-    }
-
-    /**
-     * Add impact factor for one particular task
-     *
-     * @param task, the task
-     * @param impact , the impact factor
-     */
-    private void addImpact(Task task, double impact) {
-
-        task.setImpact(task.getImpact() + impact);
-        int size = task.getParentList().size();
-        if (size > 0) {
-            double avg = impact / size;
-            for (Task parent : task.getParentList()) {
-                addImpact(parent, avg);
+        while (!queue.isEmpty()) {
+            Task task = queue.poll();
+            int size = task.getParentList().size();
+            if (size > 0) {
+                double impact = task.getImpact() / size;
+                for (Task parent : task.getParentList()) {
+                    parent.setImpact(parent.getImpact() + impact);
+                    Integer left = pending.get(parent);
+                    if (left != null) {
+                        if (left == 1) {
+                            pending.remove(parent);
+                            queue.add(parent);
+                        } else {
+                            pending.put(parent, left - 1);
+                        }
+                    }
+                }
             }
         }
     }
@@ -16,10 +16,12 @@
 package org.workflowsim;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.DatacenterBroker;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -52,6 +54,11 @@ public class WorkflowScheduler extends DatacenterBroker {
      */
     private int workflowEngineId;
 
+    /**
+     * The runtime statistics and the backup copies of speculative execution.
+     */
+    private final SpeculativeExecution speculation;
+
     /**
      * Created a new WorkflowScheduler object.
      *
@@ -63,6 +70,7 @@ public class WorkflowScheduler extends DatacenterBroker {
      */
     public WorkflowScheduler(String name) throws Exception {
         super(name);
+        this.speculation = new SpeculativeExecution();
     }
 
     /**
@@ -123,6 +131,19 @@ public class WorkflowScheduler extends DatacenterBroker {
             case WorkflowSimTags.CLOUDLET_UPDATE:
                 processCloudletUpdate(ev);
                 break;
+            case WorkflowSimTags.VM_FAIL:
+                processVmFail(ev);
+                break;
+            case WorkflowSimTags.VM_RECOVER:
+                processVmRecover(ev);
+                break;
+            case WorkflowSimTags.SPECULATION_CHECK:
+                processSpeculationCheck(ev);
+                break;
+            // A backup copy or its original is cancelled
+            case CloudSimTags.CLOUDLET_CANCEL:
+                processCloudletCancel(ev);
+                break;
             default:
                 processOtherEvent(ev);
                 break;
@@ -251,15 +272,119 @@ public class WorkflowScheduler extends DatacenterBroker {
         List<Cloudlet> scheduledList = scheduler.getScheduledList();
         for (Cloudlet cloudlet : scheduledList) {
             int vmId = cloudlet.getVmId();
-            double delay = 0.0;
-            if (Parameters.getOverheadParams().getQueueDelay() != null) {
-                delay = Parameters.getOverheadParams().getQueueDelay(cloudlet);
-            }
+            double delay = Parameters.getOverheadParams().getQueueDelay(cloudlet);
             schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
+            if (SpeculativeExecution.isEnabled()) {
+                double threshold = this.speculation.watch((Job) cloudlet);
+                if (!Double.isNaN(threshold)) {
+                    schedule(this.getId(), delay + threshold, WorkflowSimTags.SPECULATION_CHECK, cloudlet);
+                }
+            }
         }
         getCloudletList().removeAll(scheduledList);
         getCloudletSubmittedList().addAll(scheduledList);
         cloudletsSubmitted += scheduledList.size();
+
+        if (SpeculativeExecution.isEnabled()) {
+            launchBackups();
+        }
+    }
+
+    /**
+     * Launches a backup copy of each straggler on the fastest idle vm, as long
+     * as there are idle vms left by the scheduling algorithm
+     */
+    private void launchBackups() {
+        for (Iterator<Job> it = this.speculation.getStragglers().iterator(); it.hasNext();) {
+            Job job = it.next();
+            if (!this.speculation.needsBackup(job)) {
+                it.remove();
+                continue;
+            }
+            CondorVM vm = null;
+            for (Vm candidate : getVmsCreatedList()) {
+                CondorVM condorVm = (CondorVM) candidate;
+                if (condorVm.getState() == WorkflowSimTags.VM_STATUS_IDLE
+                        && condorVm.getId() != job.getVmId()
+                        && (vm == null || condorVm.getMips() > vm.getMips())) {
+                    vm = condorVm;
+                }
+            }
+            if (vm == null) {
+                break;
+            }
+            //a straggler waits for a vm on which its backup would finish first
+            double mips = getVmsCreatedList().get(job.getVmId()).getMips();
+            if (!this.speculation.isFaster(job, mips, vm.getMips(), CloudSim.clock())) {
+                continue;
+            }
+            it.remove();
+            Job backup = this.speculation.createBackup(job);
+            backup.setVmId(vm.getId());
+            vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+            Log.printLine(CloudSim.clock() + ": " + getName() + ": Job #" + job.getCloudletId()
+                    + " straggles on VM #" + job.getVmId() + ", a backup is launched on VM #" + vm.getId());
+            double delay = Parameters.getOverheadParams().getQueueDelay(backup);
+            schedule(getVmsToDatacentersMap().get(vm.getId()), delay, CloudSimTags.CLOUDLET_SUBMIT, backup);
+        }
+    }
+
+    /**
+     * Checks whether a running job straggles. A straggler waits for an idle
+     * vm to run its backup copy.
+     *
+     * @param ev a simEvent object
+     */
+    protected void processSpeculationCheck(SimEvent ev) {
+        Job job = (Job) ev.getData();
+        double delay = this.speculation.check(job, CloudSim.clock());
+        if (delay > 0.0) {
+            schedule(this.getId(), delay, WorkflowSimTags.SPECULATION_CHECK, job);
+        } else if (delay == 0.0) {
+            sendNow(this.getId(), WorkflowSimTags.CLOUDLET_UPDATE);
+        }
+    }
+
+    /**
+     * Process the ack of a cancelled copy. Its vm is released unless the copy
+     * has finished just before, in which case it still returns.
+     *
+     * @param ev a simEvent object
+     */
+    protected void processCloudletCancel(SimEvent ev) {
+        Job job = (Job) ev.getData();
+        // the copy has not reached its vm yet or has finished already
+        if (job == null || job.getCloudletStatus() == Cloudlet.SUCCESS) {
+            return;
+        }
+        if (this.speculation.isCancelled(job)) {
+            this.speculation.release(job);
+            releaseVm(job.getVmId());
+            schedule(this.getId(), 0.0, WorkflowSimTags.CLOUDLET_UPDATE);
+        }
+    }
+
+    /**
+     * Cancels a copy of a job since the other copy has won
+     *
+     * @param job the copy
+     */
+    private void cancelCopy(Job job) {
+        this.speculation.cancel(job);
+        int[] data = new int[]{job.getCloudletId(), job.getUserId(), job.getVmId()};
+        sendNow(getVmsToDatacentersMap().get(job.getVmId()), CloudSimTags.CLOUDLET_CANCEL, data);
+    }
+
+    /**
+     * Releases a vm so that jobs can be scheduled to it, unless it has failed
+     *
+     * @param vmId the vm id
+     */
+    private void releaseVm(int vmId) {
+        CondorVM vm = (CondorVM) getVmsCreatedList().get(vmId);
+        if (vm.getState() != WorkflowSimTags.VM_STATUS_FAILED) {
+            vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
+        }
     }
 
     /**
@@ -275,21 +400,56 @@ public class WorkflowScheduler extends DatacenterBroker {
         Job job = (Job) cloudlet;
 
         /**
-         * Generate a failure if failure rate is not zeros.
+         * A cancelled copy that has finished or failed before its cancel
+         * arrived
          */
-        FailureGenerator.generate(job);
+        if (this.speculation.isCancelled(job)) {
+            this.speculation.release(job);
+            releaseVm(job.getVmId());
+            schedule(this.getId(), 0.0, WorkflowSimTags.CLOUDLET_UPDATE);
+            return;
+        }
+
+        /**
+         * Generate a failure if failure rate is not zeros. A job aborted by a
+         * vm failure has failed already.
+         */
+        if (job.getCloudletStatus() != Cloudlet.FAILED) {
+            FailureGenerator.generate(job);
+        }
+
+        /**
+         * The first copy of a job that completes wins and the other copy is
+         * cancelled. A copy that fails while the other one still runs is
+         * dropped.
+         */
+        Job original = this.speculation.getOriginal(job);
+        Job other = this.speculation.finish(job);
+        if (other != null) {
+            if (job.getCloudletStatus() == Cloudlet.FAILED) {
+                releaseVm(job.getVmId());
+                schedule(this.getId(), 0.0, WorkflowSimTags.CLOUDLET_UPDATE);
+                return;
+            }
+            cancelCopy(other);
+        }
+        if (job != original) {
+            this.speculation.restoreTasks(job, original);
+        }
+        if (SpeculativeExecution.isEnabled() && job.getCloudletStatus() == Cloudlet.SUCCESS) {
+            this.speculation.addRuntime(job);
+            for (Job pending : this.speculation.updatePending()) {
+                schedule(this.getId(), 0.0, WorkflowSimTags.SPECULATION_CHECK, pending);
+            }
+        }
 
         getCloudletReceivedList().add(cloudlet);
-        getCloudletSubmittedList().remove(cloudlet);
+        getCloudletSubmittedList().remove(original);
 
-        CondorVM vm = (CondorVM) getVmsCreatedList().get(cloudlet.getVmId());
-        //so that this resource is released
-        vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
+        //so that this resource is released, unless it has failed
+        releaseVm(cloudlet.getVmId());
 
-        double delay = 0.0;
-        if (Parameters.getOverheadParams().getPostDelay() != null) {
-            delay = Parameters.getOverheadParams().getPostDelay(job);
-        }
+        double delay = Parameters.getOverheadParams().getPostDelay(job);
         schedule(this.workflowEngineId, delay, CloudSimTags.CLOUDLET_RETURN, cloudlet);
 
         cloudletsSubmitted--;
@@ -298,6 +458,35 @@ public class WorkflowScheduler extends DatacenterBroker {
 
     }
 
+    /**
+     * A vm has failed, no job should be scheduled to it until it recovers.
+     * The jobs on it are returned as failed by the datacenter. A vm may fail
+     * before its creation ack arrives, so it is looked up among all the vms.
+     *
+     * @param ev a SimEvent object
+     */
+    protected void processVmFail(SimEvent ev) {
+        int vmId = (Integer) ev.getData();
+        CondorVM vm = (CondorVM) VmList.getById(getVmList(), vmId);
+        if (vm != null) {
+            vm.setState(WorkflowSimTags.VM_STATUS_FAILED);
+        }
+    }
+
+    /**
+     * A failed vm has recovered and can take jobs again
+     *
+     * @param ev a SimEvent object
+     */
+    protected void processVmRecover(SimEvent ev) {
+        int vmId = (Integer) ev.getData();
+        CondorVM vm = (CondorVM) VmList.getById(getVmList(), vmId);
+        if (vm != null) {
+            vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
+            schedule(this.getId(), 0.0, WorkflowSimTags.CLOUDLET_UPDATE);
+        }
+    }
+
     /**
      * Start this entity (WorkflowScheduler)
      */
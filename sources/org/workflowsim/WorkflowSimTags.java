@@ -40,10 +40,26 @@ public class WorkflowSimTags {
      * VM Status is idle (a job can run on this vm)
      */
     public static final int VM_STATUS_IDLE = BASE + 4;     //就绪
+    /**
+     * VM Status is failed (no jobs can run on this vm until it recovers)
+     */
+    public static final int VM_STATUS_FAILED = BASE + 9;
     public static final int START_SIMULATION = BASE + 0;   //开始模拟
     public static final int JOB_SUBMIT = BASE + 1;         //提交任务
     public static final int CLOUDLET_UPDATE = BASE + 5;    //
     public static final int CLOUDLET_CHECK = BASE + 6;
+    /**
+     * A vm fails, the jobs running on it are aborted
+     */
+    public static final int VM_FAIL = BASE + 7;
+    /**
+     * A failed vm recovers
+     */
+    public static final int VM_RECOVER = BASE + 8;
+    /**
+     * Checks whether a running job straggles and needs a backup copy
+     */
+    public static final int SPECULATION_CHECK = BASE + 10;
 
     /**
      * Private Constructor
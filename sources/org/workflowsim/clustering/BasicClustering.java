@@ -193,9 +193,11 @@ public class BasicClustering implements ClusteringInterface {
                         }
                     }
                 }
-                for (String fileName : task.getRequiredFiles()) {
-                    if (!job.getRequiredFiles().contains(fileName)) {
-                        job.getRequiredFiles().add(fileName);
+                if (task.requiresFiles()) {
+                    for (String fileName : task.getRequiredFiles()) {
+                        if (!job.getRequiredFiles().contains(fileName)) {
+                            job.getRequiredFiles().add(fileName);
+                        }
                     }
                 }
             }
@@ -0,0 +1,381 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.FileItem;
+import org.workflowsim.Task;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters.FileType;
+
+/**
+ * MakespanEstimator predicts the makespan of a workflow after horizontal
+ * clustering without running the simulation. For a given clusters.num it
+ * merges each level the same way HorizontalClustering does, walks the job
+ * graph level by level to get the ready time of each job (critical path) and
+ * places the jobs on the vms with a list scheduler (earliest completion time)
+ * so that the queueing of jobs is modeled as well. The overheads are the means of the distributions in
+ * OverheadParameters.
+ *
+ * One estimation is O(V + E + J * M) for V tasks, E edges, J jobs and M vms.
+ * It does not change any task and can be called from several threads.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class MakespanEstimator {
+
+    /**
+     * The length of the stage-in job (see ClusteringEngine).
+     */
+    private static final double STAGE_IN_LENGTH = 110;
+    /**
+     * Tasks grouped by depth, depth in ascending order.
+     */
+    private final int[][] levels;
+    /**
+     * The parents of each task.
+     */
+    private final int[][] parents;
+    /**
+     * The length of each task (MI).
+     */
+    private final double[] lengths;
+    /**
+     * The size of the input files of each task (Byte).
+     */
+    private final double[] inputSizes;
+    /**
+     * The depth of each level.
+     */
+    private final int[] depths;
+    /**
+     * The mips of each vm.
+     */
+    private final double[] mips;
+    /**
+     * The bandwidth of each vm.
+     */
+    private final double[] bandwidths;
+    /**
+     * The mean overheads per depth. The index is the position in depths, the
+     * last one is the stage-in job.
+     */
+    private final double[] wedDelay;
+    private final double[] queueDelay;
+    private final double[] postDelay;
+    private final double[] clustDelay;
+
+    /**
+     * Initialize a MakespanEstimator
+     *
+     * @param taskList the tasks (with depth already set)
+     * @param vmList the vms
+     * @param params the overhead parameters
+     */
+    public MakespanEstimator(List<Task> taskList, List<? extends Vm> vmList, OverheadParameters params) {
+        int size = taskList.size();
+        Map<Task, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < size; i++) {
+            index.put(taskList.get(i), i);
+        }
+        this.lengths = new double[size];
+        this.inputSizes = new double[size];
+        this.parents = new int[size][];
+        int maxDepth = 0;
+        for (int i = 0; i < size; i++) {
+            Task task = taskList.get(i);
+            this.lengths[i] = task.getCloudletLength();
+            double input = 0.0;
+            for (FileItem file : task.getFileList()) {
+                if (file.getType() == FileType.INPUT) {
+                    input += file.getSize();
+                }
+            }
+            this.inputSizes[i] = input;
+            List<Task> parentList = task.getParentList();
+            int[] p = new int[parentList.size()];
+            int count = 0;
+            for (Task parent : parentList) {
+                Integer id = index.get(parent);
+                if (id != null) {
+                    p[count++] = id;
+                }
+            }
+            this.parents[i] = count == p.length ? p : Arrays.copyOf(p, count);
+            maxDepth = Math.max(maxDepth, task.getDepth());
+        }
+        /**
+         * Counting sort tasks by depth.
+         */
+        int[] count = new int[maxDepth + 1];
+        for (Task task : taskList) {
+            count[task.getDepth()]++;
+        }
+        int levelNum = 0;
+        for (int c : count) {
+            if (c > 0) {
+                levelNum++;
+            }
+        }
+        this.levels = new int[levelNum][];
+        this.depths = new int[levelNum];
+        int[] depth2Level = new int[maxDepth + 1];
+        int l = 0;
+        for (int d = 0; d <= maxDepth; d++) {
+            if (count[d] > 0) {
+                this.levels[l] = new int[count[d]];
+                this.depths[l] = d;
+                depth2Level[d] = l;
+                l++;
+            }
+        }
+        int[] filled = new int[levelNum];
+        for (int i = 0; i < size; i++) {
+            int level = depth2Level[taskList.get(i).getDepth()];
+            this.levels[level][filled[level]++] = i;
+        }
+
+        this.mips = new double[vmList.size()];
+        this.bandwidths = new double[vmList.size()];
+        for (int i = 0; i < vmList.size(); i++) {
+            this.mips[i] = vmList.get(i).getMips();
+            this.bandwidths[i] = vmList.get(i).getBw();
+        }
+
+        this.wedDelay = new double[levelNum + 1];
+        this.queueDelay = new double[levelNum + 1];
+        this.postDelay = new double[levelNum + 1];
+        this.clustDelay = new double[levelNum + 1];
+        for (int i = 0; i <= levelNum; i++) {
+            int depth = i < levelNum ? this.depths[i] : 0;
+            if (params != null) {
+                this.wedDelay[i] = getMean(params.getWEDDelay(), depth);
+                this.queueDelay[i] = getMean(params.getQueueDelay(), depth);
+                this.postDelay[i] = getMean(params.getPostDelay(), depth);
+                this.clustDelay[i] = getMean(params.getClustDelay(), depth);
+            }
+        }
+    }
+
+    /**
+     * Gets the mean of an overhead at a depth. The same fallback to depth 0 is
+     * used as in OverheadParameters.
+     *
+     * @param map the overhead distributions
+     * @param depth the depth
+     * @return the mean
+     */
+    private static double getMean(Map<Integer, DistributionGenerator> map, int depth) {
+        if (map == null) {
+            return 0.0;
+        }
+        DistributionGenerator generator = map.get(depth);
+        if (generator == null) {
+            generator = map.get(0);
+        }
+        if (generator == null) {
+            return 0.0;
+        }
+        return generator.getDistribution(generator.getScale(), generator.getShape()).getNumericalMean();
+    }
+
+    /**
+     * Estimates the makespan of horizontal clustering with a given
+     * clusters.num
+     *
+     * @param clustersNum clusters.num, 0 means no clustering
+     * @return the makespan
+     */
+    public double estimate(int clustersNum) {
+        int vmNum = this.mips.length;
+        if (vmNum == 0) {
+            return Double.MAX_VALUE;
+        }
+        double[] available = new double[vmNum];
+
+        /**
+         * The stage-in job is the parent of all the first level jobs.
+         */
+        int stageIn = this.levels.length;
+        int vm = getFastestVm(available, 0.0, 0.0, STAGE_IN_LENGTH);
+        available[vm] = this.wedDelay[stageIn] + this.queueDelay[stageIn]
+                + STAGE_IN_LENGTH / this.mips[vm];
+        double root = available[vm] + this.postDelay[stageIn];
+        double makespan = root;
+
+        int[] task2Job = new int[this.lengths.length];
+        double[] finish = new double[0];
+        int jobBase = 0;
+        for (int l = 0; l < this.levels.length; l++) {
+            int[] level = this.levels[l];
+            int num = level.length;
+            int jobNum = clustersNum > 0 ? Math.min(clustersNum, num) : num;
+            double[] ready = new double[jobNum];
+            double[] length = new double[jobNum];
+            double[] input = new double[jobNum];
+            /**
+             * Split the level into jobNum jobs, the first (num % jobNum) jobs
+             * have one more task.
+             */
+            int avg = num / jobNum;
+            int mid = num - jobNum * avg;
+            int pos = 0;
+            for (int j = 0; j < jobNum; j++) {
+                int jobSize = j < mid ? avg + 1 : avg;
+                for (int k = 0; k < jobSize; k++, pos++) {
+                    int task = level[pos];
+                    task2Job[task] = jobBase + j;
+                    length[j] += this.lengths[task];
+                    input[j] += this.inputSizes[task];
+                    if (this.parents[task].length == 0) {
+                        ready[j] = Math.max(ready[j], root);
+                    }
+                    for (int parent : this.parents[task]) {
+                        ready[j] = Math.max(ready[j], finish[task2Job[parent]]);
+                    }
+                }
+                if (clustersNum > 0) {
+                    length[j] += this.clustDelay[l] * 1000;
+                }
+            }
+            /**
+             * Jobs are released in the order they get ready.
+             */
+            Integer[] order = new Integer[jobNum];
+            for (int j = 0; j < jobNum; j++) {
+                order[j] = j;
+            }
+            final double[] jobReady = ready;
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(jobReady[a], jobReady[b]);
+                }
+            });
+            if (finish.length < jobBase + jobNum) {
+                finish = Arrays.copyOf(finish, Math.max(jobBase + jobNum, finish.length * 2));
+            }
+            for (int j : order) {
+                double release = ready[j] + this.wedDelay[l];
+                vm = getFastestVm(available, release, input[j], length[j]);
+                double start = Math.max(release, available[vm]);
+                available[vm] = start + this.queueDelay[l]
+                        + input[j] / Consts.MILLION / this.bandwidths[vm]
+                        + length[j] / this.mips[vm];
+                finish[jobBase + j] = available[vm] + this.postDelay[l];
+                makespan = Math.max(makespan, finish[jobBase + j]);
+            }
+            jobBase += jobNum;
+        }
+        return makespan;
+    }
+
+    /**
+     * Gets the vm that completes a job first. Ties are broken by vm index.
+     *
+     * @param available the time each vm gets idle
+     * @param release the time the job is released
+     * @param input the input size of the job
+     * @param length the length of the job
+     * @return the index of the vm
+     */
+    private int getFastestVm(double[] available, double release, double input, double length) {
+        int best = 0;
+        double bestFinish = Double.MAX_VALUE;
+        for (int i = 0; i < available.length; i++) {
+            double finish = Math.max(release, available[i])
+                    + input / Consts.MILLION / this.bandwidths[i]
+                    + length / this.mips[i];
+            if (finish < bestFinish) {
+                bestFinish = finish;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the width of the widest level
+     *
+     * @return the maximum number of tasks at a level
+     */
+    public int getMaxWidth() {
+        int max = 0;
+        for (int[] level : this.levels) {
+            max = Math.max(max, level.length);
+        }
+        return max;
+    }
+
+    /**
+     * Searches the clusters.num from 1 to max that has the minimal estimated
+     * makespan. The candidates are evaluated in parallel.
+     *
+     * @param max the largest clusters.num to try, 0 means the widest level
+     * @return the best clusters.num
+     */
+    public int search(int max) {
+        if (max <= 0) {
+            max = getMaxWidth();
+        }
+        if (max <= 1) {
+            return 1;
+        }
+        int threads = Math.min(max, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Double>> results = new ArrayList<>();
+        for (int num = 1; num <= max; num++) {
+            final int clustersNum = num;
+            results.add(executor.submit(new Callable<Double>() {
+                @Override
+                public Double call() {
+                    return estimate(clustersNum);
+                }
+            }));
+        }
+        int best = max;
+        double bestMakespan = Double.MAX_VALUE;
+        try {
+            for (int i = 0; i < results.size(); i++) {
+                double makespan = results.get(i).get();
+                if (makespan < bestMakespan) {
+                    bestMakespan = makespan;
+                    best = i + 1;
+                }
+            }
+        } catch (Exception e) {
+            Log.printLine("Error in estimating the makespan");
+            e.printStackTrace();
+        } finally {
+            executor.shutdown();
+        }
+        Log.printLine("Estimated makespan " + bestMakespan + " with clusters.num = " + best);
+        return best;
+    }
+}
@@ -0,0 +1,268 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.clustering;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.workflowsim.FileItem;
+import org.workflowsim.Job;
+import org.workflowsim.Task;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.Parameters.ClassType;
+
+/**
+ * OnlineClustering merges jobs at runtime when they are released by the
+ * WorkflowEngine. Unlike the static clustering methods it does not use
+ * clusters.num or clusters.size. The size of a clustered job is derived from
+ * the queue delay, postscript delay and task runtime measured from the jobs
+ * that have returned so far, and from the number of idle vms.
+ *
+ * A job runs k tasks and pays the overhead once, so we merge just enough tasks
+ * to amortize the measured overhead (k * t >= queue + post) but never produce
+ * fewer jobs than there are idle vms.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class OnlineClustering {
+
+    /**
+     * The weight of the latest measurement in the moving averages.
+     */
+    private static final double WEIGHT = 0.2;
+    /**
+     * The average queue delay (from release to execution start).
+     */
+    private double queueDelay;
+    /**
+     * The average postscript delay (from finish to return).
+     */
+    private double postDelay;
+    /**
+     * The average runtime of a single task.
+     */
+    private double taskRuntime;
+    /**
+     * Number of jobs measured so far.
+     */
+    private int delaySamples;
+    /**
+     * Number of compute jobs measured so far.
+     */
+    private int runtimeSamples;
+    /**
+     * The time each job is released to a scheduler, key = job id.
+     */
+    private final Map<Integer, Double> releaseTime;
+    /**
+     * The jobs a clustered job is built from, key = clustered job id.
+     */
+    private final Map<Integer, List<Job>> mJob2Jobs;
+
+    /**
+     * Initialize an OnlineClustering object
+     */
+    public OnlineClustering() {
+        this.releaseTime = new HashMap<>();
+        this.mJob2Jobs = new HashMap<>();
+        this.queueDelay = 0.0;
+        this.postDelay = 0.0;
+        this.taskRuntime = 0.0;
+        this.delaySamples = 0;
+        this.runtimeSamples = 0;
+    }
+
+    /**
+     * Gets the measured queue delay
+     *
+     * @return queue delay
+     */
+    public double getQueueDelay() {
+        return this.queueDelay;
+    }
+
+    /**
+     * Gets the measured postscript delay
+     *
+     * @return postscript delay
+     */
+    public double getPostDelay() {
+        return this.postDelay;
+    }
+
+    /**
+     * Gets the measured task runtime
+     *
+     * @return task runtime
+     */
+    public double getTaskRuntime() {
+        return this.taskRuntime;
+    }
+
+    /**
+     * Records that a job is released to a scheduler
+     *
+     * @param job the job
+     * @param time the current simulation time
+     */
+    public void release(Job job, double time) {
+        this.releaseTime.put(job.getCloudletId(), time);
+    }
+
+    /**
+     * Updates the measurements with a returned job and gets the jobs it was
+     * merged from.
+     *
+     * @param job the job returned
+     * @param time the current simulation time
+     * @return the merged jobs, or the job itself if it was not merged
+     */
+    public List<Job> complete(Job job, double time) {
+        Double released = this.releaseTime.remove(job.getCloudletId());
+        if (released != null && job.getExecStartTime() >= released) {
+            double queue = job.getExecStartTime() - released;
+            double post = Math.max(0.0, time - job.getFinishTime());
+            this.queueDelay = average(this.queueDelay, queue, this.delaySamples);
+            this.postDelay = average(this.postDelay, post, this.delaySamples);
+            this.delaySamples++;
+        }
+        if (job.getClassType() == ClassType.COMPUTE.value && !job.getTaskList().isEmpty()) {
+            double runtime = job.getActualCPUTime() / job.getTaskList().size();
+            this.taskRuntime = average(this.taskRuntime, runtime, this.runtimeSamples);
+            this.runtimeSamples++;
+        }
+        List<Job> jobs = this.mJob2Jobs.remove(job.getCloudletId());
+        if (jobs == null) {
+            jobs = new ArrayList<>();
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    /**
+     * Exponentially weighted moving average. The first sample is taken as it
+     * is.
+     */
+    private double average(double mean, double value, int samples) {
+        if (samples == 0) {
+            return value;
+        }
+        return (1 - WEIGHT) * mean + WEIGHT * value;
+    }
+
+    /**
+     * Gets the number of tasks to merge into a job
+     *
+     * @param tasks the number of ready tasks at a level
+     * @param vms the number of idle vms
+     * @return the clustering factor
+     */
+    public int getClusteringFactor(int tasks, int vms) {
+        if (this.runtimeSamples == 0 || this.taskRuntime <= 0.0 || vms <= 0) {
+            return 1;
+        }
+        int max = (tasks + vms - 1) / vms;
+        double overhead = this.queueDelay + this.postDelay;
+        int k = (int) Math.ceil(overhead / this.taskRuntime);
+        return Math.max(1, Math.min(k, max));
+    }
+
+    /**
+     * Merges the ready jobs level by level. Stage-in jobs and jobs that have
+     * been bound to a vm by a planner are not merged.
+     *
+     * @param list the ready jobs
+     * @param vms the number of idle vms
+     * @return the jobs to submit
+     */
+    public List<Job> run(List<Job> list, int vms) {
+        List<Job> jobList = new ArrayList<>();
+        Map<Integer, List<Job>> mDepth2Jobs = new LinkedHashMap<>();
+        for (Job job : list) {
+            if (job.getClassType() != ClassType.COMPUTE.value || job.getVmId() >= 0) {
+                jobList.add(job);
+                continue;
+            }
+            int depth = job.getDepth();
+            if (!mDepth2Jobs.containsKey(depth)) {
+                mDepth2Jobs.put(depth, new ArrayList<>());
+            }
+            mDepth2Jobs.get(depth).add(job);
+        }
+        for (List<Job> jobs : mDepth2Jobs.values()) {
+            int k = getClusteringFactor(jobs.size(), vms);
+            for (int start = 0; start < jobs.size(); start += k) {
+                int end = Math.min(start + k, jobs.size());
+                if (end - start == 1) {
+                    jobList.add(jobs.get(start));
+                } else {
+                    jobList.add(merge(jobs.subList(start, end)));
+                }
+            }
+        }
+        return jobList;
+    }
+
+    /**
+     * Merges a list of jobs into one job. The new job takes the id of the
+     * first job so that no new job id is needed.
+     *
+     * @param jobs the jobs to merge
+     * @return the clustered job
+     */
+    private Job merge(List<Job> jobs) {
+        Job first = jobs.get(0);
+        Job job = new Job(first.getCloudletId(), 0);
+        job.setClassType(ClassType.COMPUTE.value);
+        job.setUserId(first.getUserId());
+        job.setDepth(first.getDepth());
+        job.setPriority(first.getPriority());
+        long length = 0;
+        for (Job cJob : jobs) {
+            length += cJob.getCloudletLength();
+            job.getTaskList().addAll(cJob.getTaskList());
+            for (FileItem file : cJob.getFileList()) {
+                if (!job.getFileList().contains(file)) {
+                    job.getFileList().add(file);
+                }
+            }
+            for (String fileName : cJob.getRequiredFiles()) {
+                if (!job.getRequiredFiles().contains(fileName)) {
+                    job.getRequiredFiles().add(fileName);
+                }
+            }
+            for (Object parentObject : cJob.getParentList()) {
+                Task parent = (Task) parentObject;
+                if (!job.getParentList().contains(parent)) {
+                    job.addParent(parent);
+                }
+            }
+            for (Task child : cJob.getChildList()) {
+                if (!job.getChildList().contains(child)) {
+                    job.addChild(child);
+                }
+            }
+        }
+        job.setCloudletLength(length);
+        double delay = Parameters.getOverheadParams().getClustDelay(job);
+        delay *= 1000; // the same ratio used when you parse a workflow
+        job.setCloudletLength(job.getCloudletLength() + (long) delay);
+        this.mJob2Jobs.put(job.getCloudletId(), new ArrayList<>(jobs));
+        return job;
+    }
+}
@@ -22,9 +22,9 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import org.workflowsim.Task;
 import org.workflowsim.clustering.TaskSet;
+import org.workflowsim.utils.RandomService;
 
 /**
  * HorizontalRuntimeBalancing is a method that merges task so as to balance job runtime
@@ -50,12 +50,10 @@ public class HorizontalRuntimeBalancing extends BalancingMethod {
     @Override
     public void run() {
         Map<Integer, List<TaskSet>> map = getLevelMap();
-        for (List<TaskSet> taskList : map.values()) {
+        for (Map.Entry<Integer, List<TaskSet>> entry : map.entrySet()) {
+            List<TaskSet> taskList = entry.getValue();
             /**The reason why we don shuffle is very complicated. */
-            long seed = System.nanoTime();
-            Collections.shuffle(taskList, new Random(seed));
-            seed = System.nanoTime();
-            Collections.shuffle(taskList, new Random(seed));
+            Collections.shuffle(taskList, RandomService.getRandom("clustering.runtime", entry.getKey()));
 
             if (taskList.size() > getClusterNum()) {
                 List<TaskSet> jobList = new ArrayList<>();
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.failure;
+
+import org.workflowsim.Job;
+import org.workflowsim.Task;
+
+/**
+ * CheckpointModel lets tasks checkpoint while they run. A run of a task is a
+ * sequence of intervals of work, each followed by a checkpoint except the
+ * last one. When a task fails the work up to its last checkpoint is kept and
+ * only the rest is run again.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class CheckpointModel {
+
+    /**
+     * The highest task failure rate used to estimate the mean time between
+     * failures
+     */
+    private static final double MAX_FAILURE_RATE = 0.99;
+
+    /**
+     * Gets the checkpoint interval of a task that is going to run
+     *
+     * @param task the task
+     * @param vmId the vm it runs on
+     * @param runtime the runtime of the task without checkpoints
+     * @return the interval, 0 means no checkpoints
+     */
+    public static double getInterval(Task task, int vmId, double runtime) {
+        switch (FailureParameters.getCheckpointMode()) {
+            case CHECKPOINT_FIXED:
+                return FailureParameters.getCheckpointInterval();
+            case CHECKPOINT_OPTIMAL:
+                double a;
+                switch (FailureParameters.getMonitorMode()) {
+                    case MONITOR_VM:
+                        a = FailureMonitor.analyze(0, vmId);
+                        break;
+                    default:
+                        a = FailureMonitor.analyze(0, task.getDepth());
+                        break;
+                }
+                double overhead = FailureParameters.getCheckpointOverhead();
+                if (a <= 0.0 || runtime <= 0.0 || overhead <= 0.0) {
+                    return 0.0;
+                }
+                /**
+                 * A task of this runtime fails with rate a, so failures come
+                 * every runtime / -ln(1 - a) on average.
+                 */
+                double mtbf = runtime / -Math.log(1 - Math.min(a, MAX_FAILURE_RATE));
+                return getOptimalInterval(overhead, mtbf);
+            default:
+                return 0.0;
+        }
+    }
+
+    /**
+     * Gets the optimal checkpoint interval (Daly's higher order estimate of
+     * Young's interval)
+     *
+     * @param overhead the time it takes to write a checkpoint
+     * @param mtbf the mean time between failures
+     * @return the interval
+     */
+    public static double getOptimalInterval(double overhead, double mtbf) {
+        if (overhead >= 2 * mtbf) {
+            return mtbf;
+        }
+        double x = overhead / (2 * mtbf);
+        return Math.sqrt(2 * overhead * mtbf) * (1 + Math.sqrt(x) / 3 + x / 9) - overhead;
+    }
+
+    /**
+     * Gets the time a task spends on checkpoints
+     *
+     * @param task the task, its checkpoint interval must be set
+     * @param runtime the runtime of the task without checkpoints
+     * @return the time of all its checkpoints
+     */
+    public static double getOverhead(Task task, double runtime) {
+        double interval = task.getCheckpointInterval();
+        if (interval <= 0.0 || runtime <= interval) {
+            return 0.0;
+        }
+        return (Math.ceil(runtime / interval) - 1) * FailureParameters.getCheckpointOverhead();
+    }
+
+    /**
+     * Restarts a failed task from its last checkpoint. The work kept is taken
+     * off the length of the task and of its job so that a retry only runs the
+     * rest.
+     *
+     * @param job the failed job
+     * @param task the failed task, its exec start time and finish time are
+     * those of the failed run
+     * @param elapsed the time the task has run when it fails
+     * @return the length kept
+     */
+    public static long restart(Job job, Task task, double elapsed) {
+        double interval = task.getCheckpointInterval();
+        if (interval <= 0.0 || elapsed <= 0.0) {
+            return 0;
+        }
+        double overhead = FailureParameters.getCheckpointOverhead();
+        double total = task.getTaskFinishTime() - task.getExecStartTime();
+        /**
+         * total = work + count * overhead with count = ceil(work / interval) - 1
+         */
+        double count = Math.ceil((total + overhead) / (interval + overhead)) - 1;
+        double done = Math.min(count, Math.floor(elapsed / (interval + overhead)));
+        if (done <= 0) {
+            return 0;
+        }
+        double work = total - count * overhead;
+        long kept = (long) (task.getCloudletLength() * done * interval / work);
+        task.setCloudletLength(task.getCloudletLength() - kept);
+        job.setCloudletLength(job.getCloudletLength() - kept);
+        return kept;
+    }
+}
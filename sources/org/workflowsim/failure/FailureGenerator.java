@@ -15,14 +15,9 @@
  */
 package org.workflowsim.failure;
 
-import org.apache.commons.math3.distribution.GammaDistribution;
-import org.apache.commons.math3.distribution.LogNormalDistribution;
-import org.apache.commons.math3.distribution.NormalDistribution;
-import org.apache.commons.math3.distribution.RealDistribution;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
-import org.apache.commons.math3.distribution.WeibullDistribution;
 import org.workflowsim.utils.DistributionGenerator;
 
 /**
@@ -42,33 +37,6 @@ public class FailureGenerator {
     private static final int maxFailureSizeExtension = 50;
     private static int failureSizeExtension = 0;
     private static final boolean hasChangeTime = false;
-    /**
-     *
-     * @param alpha
-     * @param beta
-     * @return 
-     */
-    protected static RealDistribution getDistribution(double alpha, double beta) {
-        RealDistribution distribution = null;
-        switch (FailureParameters.getFailureDistribution()) {
-            case LOGNORMAL:
-                distribution = new LogNormalDistribution(1.0 / alpha, beta);
-                break;
-            case WEIBULL:
-                distribution = new WeibullDistribution(beta, 1.0 / alpha);
-                break;
-            case GAMMA:
-                distribution = new GammaDistribution(beta, 1.0 / alpha);
-                break;
-            case NORMAL:
-                //beta is the std, 1.0/alpha is the mean
-                distribution = new NormalDistribution(1.0 / alpha, beta);
-                break;
-            default:
-                break;
-        }
-        return distribution;
-    }
 
     protected static void initFailureSamples() {
     }
@@ -82,6 +50,18 @@ public class FailureGenerator {
     }
 
     protected static boolean checkFailureStatus(Task task, int vmId) throws Exception {
+        return getFailureTime(task, vmId) >= 0.0;
+    }
+
+    /**
+     * Gets the time a task fails at
+     *
+     * @param task the task that has run
+     * @param vmId the vm it has run on
+     * @return the failure time, -1 if it does not fail
+     * @throws Exception if the failure rate is too high
+     */
+    protected static double getFailureTime(Task task, int vmId) throws Exception {
 
 
         DistributionGenerator generator;
@@ -111,18 +91,15 @@ public class FailureGenerator {
                 generator = FailureParameters.getGenerator(vmId, task.getDepth());
                 break;
             default:
-                return false;
+                return -1.0;
         }
         
         double start = task.getExecStartTime();
         double end = task.getTaskFinishTime();
         
         
-        double[] samples = generator.getCumulativeSamples();
-        
-        while (samples[samples.length - 1] < start) {
+        while (generator.getLastCumulativeSample() < start) {
             generator.extendSamples();
-            samples = generator.getCumulativeSamples();
             failureSizeExtension++;
             if (failureSizeExtension >= maxFailureSizeExtension) {
                 throw new Exception("Error rate is too high such that the simulator terminates");
@@ -130,20 +107,20 @@ public class FailureGenerator {
             }
         }
 
-        for (int sampleId = 0; sampleId < samples.length; sampleId++) {
-            if (end < samples[sampleId]) {
-                //no failure
-                return false;
-            }
-            if (start <= samples[sampleId]) {
-                //has a failure
-                /** The idea is we need to update the cursor in generator**/
-                generator.getNextSample();
-                return true;
-            }
+        /**
+         * The first failure at or after start, the task fails if it is not
+         * after end.
+         */
+        int sampleId = generator.findCumulativeSample(start);
+        if (sampleId < generator.getSampleNum()
+                && generator.getCumulativeSample(sampleId) <= end) {
+            //has a failure
+            /** The idea is we need to update the cursor in generator**/
+            generator.getNextSample();
+            return generator.getCumulativeSample(sampleId);
         }
-
-        return false;
+        //no failure
+        return -1.0;
     }
 
     /**
@@ -163,11 +140,14 @@ public class FailureGenerator {
 
             for (Task task : job.getTaskList()) {
                 int failedTaskSum = 0;
-                if (checkFailureStatus(task, job.getVmId())) {
+                double failureTime = getFailureTime(task, job.getVmId());
+                if (failureTime >= 0.0) {
                     //this task fail
                     jobFailed = true;
                     failedTaskSum++;
                     task.setCloudletStatus(Cloudlet.FAILED);
+                    //keeps the work up to the last checkpoint
+                    CheckpointModel.restart(job, task, failureTime - task.getExecStartTime());
                 }
                 FailureRecord record = new FailureRecord(0, failedTaskSum, task.getDepth(), 1, job.getVmId(), task.getCloudletId(), job.getUserId());
                 FailureMonitor.postFailureRecord(record);
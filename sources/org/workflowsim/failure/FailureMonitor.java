@@ -24,6 +24,10 @@ import org.cloudbus.cloudsim.Log;
 /**
  * FailureMonitor collects failure information
  *
+ * The failure rates are kept as running aggregates globally, per vm and per
+ * depth (see FailureStatistics), so analyze is O(1). The records themselves
+ * are only kept if asked for in init.
+ *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
@@ -50,15 +54,88 @@ public class FailureMonitor {
      * Id to a Job.
      */
     public static Map index2job;
+    /**
+     * Whether the records are kept in the lists above.
+     */
+    private static boolean keepRecords;
+    /**
+     * The sliding window and decay of the statistics.
+     */
+    private static int window;
+    private static double decay;
+    /**
+     * The statistics of all the records, per vm id and per depth.
+     */
+    private static FailureStatistics allStatistics;
+    private static Map<Integer, FailureStatistics> vm2statistics;
+    private static Map<Integer, FailureStatistics> type2statistics;
 
     /**
-     * Initialize a FailureMonitor object.
+     * Initialize a FailureMonitor object. The records are not kept and the
+     * rates are cumulative.
      */
     public static void init() {
+        init(false, 0, 0.0);
+    }
+
+    /**
+     * Initialize a FailureMonitor object.
+     *
+     * @param keep whether to keep all the failure records
+     * @param windowSize the number of latest records the rates are computed
+     * from, 0 for all the records
+     * @param weight the weight of the latest record in exponentially decayed
+     * rates (0, 1], 0 for none. Ignored if windowSize is set.
+     */
+    public static void init(boolean keep, int windowSize, double weight) {
+        keepRecords = keep;
+        window = windowSize;
+        decay = weight;
         vm2record = new HashMap<>();
         type2record = new HashMap<>();
         jobid2record = new HashMap<>();
         recordList = new ArrayList<>();
+        allStatistics = new FailureStatistics(window, decay);
+        vm2statistics = new HashMap<>();
+        type2statistics = new HashMap<>();
+    }
+
+    /**
+     * Gets all the failure records, empty unless they are kept
+     *
+     * @return the failure records
+     */
+    public static List<FailureRecord> getRecordList() {
+        return recordList;
+    }
+
+    /**
+     * Gets the statistics of all the records
+     *
+     * @return the statistics
+     */
+    public static FailureStatistics getStatistics() {
+        return allStatistics;
+    }
+
+    /**
+     * Gets the statistics of a vm
+     *
+     * @param vmId the vm id
+     * @return the statistics, null if there is no record of this vm
+     */
+    public static FailureStatistics getVmStatistics(int vmId) {
+        return vm2statistics.get(vmId);
+    }
+
+    /**
+     * Gets the statistics of a depth
+     *
+     * @param depth the depth
+     * @return the statistics, null if there is no record of this depth
+     */
+    public static FailureStatistics getDepthStatistics(int depth) {
+        return type2statistics.get(depth);
     }
 
     /**
@@ -124,6 +201,13 @@ public class FailureMonitor {
             return;
         }
 
+        allStatistics.add(record);
+        getStatistics(vm2statistics, record.vmId).add(record);
+        getStatistics(type2statistics, record.depth).add(record);
+
+        if (!keepRecords) {
+            return;
+        }
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_VM:
 
@@ -148,6 +232,15 @@ public class FailureMonitor {
         recordList.add(record);
     }
 
+    private static FailureStatistics getStatistics(Map<Integer, FailureStatistics> map, int key) {
+        FailureStatistics statistics = map.get(key);
+        if (statistics == null) {
+            statistics = new FailureStatistics(window, decay);
+            map.put(key, statistics);
+        }
+        return statistics;
+    }
+
     /**
      * Update the detected task failure rate based on record lists
      *
@@ -157,50 +250,24 @@ public class FailureMonitor {
      */
     public static double analyze(int workflowId, int type) {
 
-        /**
-         * workflow level : all jobs together *
-         */
-        int sumFailures = 0;
-        int sumJobs = 0;
+        FailureStatistics statistics = null;
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_ALL:
-
-                for (FailureRecord record : recordList) {
-                    sumFailures += record.failedTasksNum;
-                    sumJobs += record.allTaskNum;
-                }
-
+                /**
+                 * workflow level : all jobs together *
+                 */
+                statistics = allStatistics;
                 break;
-
             case MONITOR_JOB:
-
-                if (type2record.containsKey(type)) {
-                    for (FailureRecord record : type2record.get(type)) {
-
-                        sumFailures += record.failedTasksNum;
-                        sumJobs += record.allTaskNum;
-                    }
-                }
-
+                statistics = type2statistics.get(type);
                 break;
             case MONITOR_VM:
-
-                if (vm2record.containsKey(type)) {
-                    for (FailureRecord record : vm2record.get(type)) {
-
-                        sumFailures += record.failedTasksNum;
-                        sumJobs += record.allTaskNum;
-                    }
-                }
-
+                statistics = vm2statistics.get(type);
                 break;
         }
-
-
-        if (sumFailures == 0) {
+        if (statistics == null) {
             return 0;
         }
-        double alpha = (double) ((double) sumFailures / (double) sumJobs);
-        return alpha;
+        return statistics.getRate();
     }
 }
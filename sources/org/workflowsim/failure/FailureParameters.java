@@ -17,9 +17,13 @@
  */
 package org.workflowsim.failure;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.utils.DistributionGenerator;
 import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
+import org.workflowsim.utils.RandomService;
 
 /**
  *
@@ -32,10 +36,17 @@ public class FailureParameters {
      * first index is vmId ;second index is task depth
      * If FAILURE_JOB is specified first index is 0 only
      * If FAILURE_VM is specified second index is 0 only
+     * If FAILURE_VM_EVENT is specified second index is 0 only and the samples
+     * are the time between two failures of a vm
      *
      * @pre 0.0<= value <= 1.0
      */
     private static DistributionGenerator[][] generators;
+    /**
+     * The downtime of a failed vm (FAILURE_VM_EVENT only), null means a vm
+     * recovers right away
+     */
+    private static DistributionGenerator recoveryGenerator;
     /**
      * Fault Tolerant Clustering algorithm
      * 容错聚类算法
@@ -60,7 +71,33 @@ public class FailureParameters {
 
     public enum FTCFailure {
 
-        FAILURE_NONE, FAILURE_ALL, FAILURE_VM, FAILURE_JOB, FAILURE_VM_JOB
+        FAILURE_NONE, FAILURE_ALL, FAILURE_VM, FAILURE_JOB, FAILURE_VM_JOB,
+        /**
+         * Vms fail and recover at simulation events (see VmFailureInjector),
+         * the jobs running on a failed vm are aborted.
+         */
+        FAILURE_VM_EVENT
+    }
+
+    /*
+     * FTC Checkpoint mode
+     */
+
+    public enum FTCCheckpoint {
+
+        /**
+         * Tasks do not checkpoint, a failed task reruns from the start.
+         */
+        CHECKPOINT_NONE,
+        /**
+         * Tasks checkpoint at a fixed interval.
+         */
+        CHECKPOINT_FIXED,
+        /**
+         * Tasks checkpoint at the optimal interval (Young/Daly) for the
+         * failure rate monitored so far.
+         */
+        CHECKPOINT_OPTIMAL
     }
 
     /**
@@ -76,6 +113,19 @@ public class FailureParameters {
      */
     private static FTCFailure failureMode = FTCFailure.FAILURE_NONE;
     
+    /**
+     * Checkpoint mode
+     */
+    private static FTCCheckpoint checkpointMode = FTCCheckpoint.CHECKPOINT_NONE;
+    /**
+     * The time between two checkpoints of a task (CHECKPOINT_FIXED only)
+     */
+    private static double checkpointInterval = 0.0;
+    /**
+     * The time it takes to write a checkpoint
+     */
+    private static double checkpointOverhead = 0.0;
+
     /**
      * The distribution of the failure 
      */
@@ -100,6 +150,93 @@ public class FailureParameters {
         monitorMode = monitor;
         failureMode = failure;
         generators = failureGenerators;
+        setRandomGenerators();
+    }
+
+    /**
+     * Gives each failure generator its own random stream, keyed by the first
+     * vm and depth it is used for. A generator shared by several vms or
+     * depths keeps a single stream.
+     */
+    private static void setRandomGenerators() {
+        if (generators == null) {
+            return;
+        }
+        Set<DistributionGenerator> visited = Collections.newSetFromMap(
+                new IdentityHashMap<DistributionGenerator, Boolean>());
+        for (int i = 0; i < generators.length; i++) {
+            if (generators[i] == null) {
+                continue;
+            }
+            for (int j = 0; j < generators[i].length; j++) {
+                DistributionGenerator generator = generators[i][j];
+                if (generator != null && visited.add(generator)) {
+                    generator.setRandomGenerator(RandomService.getGenerator("failure", i, j));
+                }
+            }
+        }
+        if (recoveryGenerator != null && !visited.contains(recoveryGenerator)) {
+            recoveryGenerator.setRandomGenerator(RandomService.getGenerator("failure.recovery"));
+        }
+    }
+
+    /**
+     * Init the checkpointing of tasks
+     *
+     * @param mode the checkpoint mode
+     * @param interval the time between two checkpoints (CHECKPOINT_FIXED only)
+     * @param overhead the time it takes to write a checkpoint
+     */
+    public static void initCheckpoint(FTCCheckpoint mode, double interval, double overhead) {
+        checkpointMode = mode;
+        checkpointInterval = interval;
+        checkpointOverhead = overhead;
+    }
+
+    /**
+     * Gets the checkpoint mode
+     *
+     * @return the checkpoint mode
+     */
+    public static FTCCheckpoint getCheckpointMode() {
+        return checkpointMode;
+    }
+
+    /**
+     * Gets the time between two checkpoints (CHECKPOINT_FIXED only)
+     *
+     * @return the interval
+     */
+    public static double getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Gets the time it takes to write a checkpoint
+     *
+     * @return the overhead
+     */
+    public static double getCheckpointOverhead() {
+        return checkpointOverhead;
+    }
+
+    /**
+     * Sets the downtime of a failed vm (FAILURE_VM_EVENT only). Call it before
+     * init.
+     *
+     * @param generator the downtime, null means a vm recovers right away
+     */
+    public static void setRecoveryGenerator(DistributionGenerator generator) {
+        recoveryGenerator = generator;
+    }
+
+    /**
+     * Gets the downtime of a failed vm
+     *
+     * @return the downtime generator, may be null
+     */
+    public static DistributionGenerator getRecoveryGenerator() {
+        return recoveryGenerator;
     }
 
     /**
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.failure;
+
+/**
+ * FailureStatistics keeps running aggregates of failure records, so that a
+ * task failure rate is available in O(1) without keeping the records.
+ *
+ * The rate is failed tasks / all tasks over all the records (cumulative),
+ * over the last window records (sliding window) or with exponentially decayed
+ * sums (each record multiplies the previous sums by 1 - decay).
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class FailureStatistics {
+
+    /**
+     * The number of records in the sliding window, 0 if there is no window.
+     */
+    private final int window;
+    /**
+     * The weight of the latest record, 0 if the sums are not decayed.
+     */
+    private final double decay;
+    /**
+     * The failed tasks and all tasks of the records in the window (ring).
+     */
+    private final int[] windowFailed;
+    private final int[] windowAll;
+    private int windowPos;
+    private double failedSum;
+    private double allSum;
+    private long records;
+    private long failedTasks;
+    private long allTasks;
+    private double length;
+
+    /**
+     * Initialize a FailureStatistics object
+     *
+     * @param window the number of records in the sliding window, 0 for none
+     * @param decay the weight of the latest record (0, 1], 0 for none. It is
+     * ignored if there is a window.
+     */
+    public FailureStatistics(int window, double decay) {
+        this.window = Math.max(0, window);
+        this.decay = this.window > 0 ? 0.0 : Math.max(0.0, Math.min(1.0, decay));
+        this.windowFailed = new int[this.window];
+        this.windowAll = new int[this.window];
+    }
+
+    /**
+     * Adds a record
+     *
+     * @param record the failure record
+     */
+    public void add(FailureRecord record) {
+        this.records++;
+        this.failedTasks += record.failedTasksNum;
+        this.allTasks += record.allTaskNum;
+        this.length += record.length;
+        if (this.window > 0) {
+            this.failedSum += record.failedTasksNum - this.windowFailed[this.windowPos];
+            this.allSum += record.allTaskNum - this.windowAll[this.windowPos];
+            this.windowFailed[this.windowPos] = record.failedTasksNum;
+            this.windowAll[this.windowPos] = record.allTaskNum;
+            this.windowPos = (this.windowPos + 1) % this.window;
+        } else if (this.decay > 0.0) {
+            this.failedSum = (1 - this.decay) * this.failedSum + record.failedTasksNum;
+            this.allSum = (1 - this.decay) * this.allSum + record.allTaskNum;
+        } else {
+            this.failedSum = this.failedTasks;
+            this.allSum = this.allTasks;
+        }
+    }
+
+    /**
+     * Gets the task failure rate
+     *
+     * @return failed tasks / all tasks, 0 if no task failed
+     */
+    public double getRate() {
+        if (this.failedSum <= 0.0 || this.allSum <= 0.0) {
+            return 0.0;
+        }
+        return this.failedSum / this.allSum;
+    }
+
+    /**
+     * Gets the number of records
+     *
+     * @return the number of records
+     */
+    public long getRecordNum() {
+        return this.records;
+    }
+
+    /**
+     * Gets the number of failed tasks of all the records
+     *
+     * @return the number of failed tasks
+     */
+    public long getFailedTaskNum() {
+        return this.failedTasks;
+    }
+
+    /**
+     * Gets the number of tasks of all the records
+     *
+     * @return the number of tasks
+     */
+    public long getTaskNum() {
+        return this.allTasks;
+    }
+
+    /**
+     * Gets the sum of the lengths of all the records
+     *
+     * @return the length
+     */
+    public double getLength() {
+        return this.length;
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.failure;
+
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.lists.VmList;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowSimTags;
+import org.workflowsim.utils.DistributionGenerator;
+
+/**
+ * VmFailureInjector fails and recovers the vms of a datacenter at simulation
+ * events (FAILURE_VM_EVENT). The time between two failures of a vm is drawn
+ * from FailureParameters.getGenerator(vmId, 0) and its downtime from
+ * FailureParameters.getRecoveryGenerator(). The datacenter aborts the jobs
+ * running on a failed vm and tells the scheduler of that vm. A vm only fails
+ * between its creation and its destruction in the datacenter.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class VmFailureInjector extends SimEntity {
+
+    /**
+     * The datacenter that hosts the vms.
+     */
+    private final int datacenterId;
+    /**
+     * The vms that may fail.
+     */
+    private final List<? extends Vm> vmList;
+
+    /**
+     * Created a new VmFailureInjector object.
+     *
+     * @param name name to be associated with this entity
+     * @param datacenter the datacenter that hosts the vms
+     * @param vmList the vms that may fail
+     */
+    public VmFailureInjector(String name, WorkflowDatacenter datacenter, List<? extends Vm> vmList) {
+        super(name);
+        this.datacenterId = datacenter.getId();
+        this.vmList = vmList;
+        datacenter.setVmFailureInjectorId(getId());
+    }
+
+    /**
+     * Process an event
+     *
+     * @param ev a simEvent obj
+     */
+    @Override
+    public void processEvent(SimEvent ev) {
+        switch (ev.getTag()) {
+            case WorkflowSimTags.VM_FAIL:
+                processVmFail(ev);
+                break;
+            case WorkflowSimTags.VM_RECOVER:
+                processVmRecover(ev);
+                break;
+            //the vm is created, it may fail from now on
+            case CloudSimTags.VM_CREATE_ACK:
+                processVmCreate(ev);
+                break;
+            //the vm is destroyed, it does not fail any more
+            case CloudSimTags.VM_DESTROY:
+                processVmDestroy(ev);
+                break;
+            default:
+                Log.printLine(getName() + ".processEvent(): Error - event unknown by this VmFailureInjector.");
+                break;
+        }
+    }
+
+    /**
+     * Fails a vm and schedules its recovery
+     *
+     * @param ev a simEvent obj
+     */
+    private void processVmFail(SimEvent ev) {
+        int vmId = (Integer) ev.getData();
+        Log.printLine(CloudSim.clock() + ": " + getName() + ": VM #" + vmId + " fails");
+        sendNow(this.datacenterId, WorkflowSimTags.VM_FAIL, vmId);
+        double downtime = 0.0;
+        DistributionGenerator generator = FailureParameters.getRecoveryGenerator();
+        if (generator != null) {
+            downtime = generator.getNextSample();
+        }
+        schedule(getId(), downtime, WorkflowSimTags.VM_RECOVER, vmId);
+    }
+
+    /**
+     * Recovers a vm and schedules its next failure
+     *
+     * @param ev a simEvent obj
+     */
+    private void processVmRecover(SimEvent ev) {
+        int vmId = (Integer) ev.getData();
+        Log.printLine(CloudSim.clock() + ": " + getName() + ": VM #" + vmId + " recovers");
+        sendNow(this.datacenterId, WorkflowSimTags.VM_RECOVER, vmId);
+        schedule(getId(), getNextInterval(vmId), WorkflowSimTags.VM_FAIL, vmId);
+    }
+
+    /**
+     * Schedules the first failure of a vm
+     *
+     * @param ev a simEvent obj
+     */
+    private void processVmCreate(SimEvent ev) {
+        int vmId = (Integer) ev.getData();
+        if (VmList.getById(this.vmList, vmId) != null) {
+            schedule(getId(), getNextInterval(vmId), WorkflowSimTags.VM_FAIL, vmId);
+        }
+    }
+
+    /**
+     * Cancels the pending failure or recovery of a destroyed vm, so that the
+     * simulation can end
+     *
+     * @param ev a simEvent obj
+     */
+    private void processVmDestroy(SimEvent ev) {
+        final Integer vmId = (Integer) ev.getData();
+        CloudSim.cancelAll(getId(), new Predicate() {
+            @Override
+            public boolean match(SimEvent event) {
+                return vmId.equals(event.getData());
+            }
+        });
+    }
+
+    /**
+     * Gets the time until the next failure of a vm
+     *
+     * @param vmId the vm id
+     * @return the time
+     */
+    private double getNextInterval(int vmId) {
+        return FailureParameters.getGenerator(vmId, 0).getNextSample();
+    }
+
+    /**
+     * Start this entity. The failures of a vm are scheduled once the
+     * datacenter has created it.
+     */
+    @Override
+    public void startEntity() {
+        Log.printLine(getName() + " is starting...");
+    }
+
+    /**
+     * Terminate this entity
+     */
+    @Override
+    public void shutdownEntity() {
+        Log.printLine(getName() + " is shutting down...");
+    }
+}
@@ -15,12 +15,10 @@
  */
 package org.workflowsim.planning;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.cloudbus.cloudsim.Vm;
-import org.workflowsim.FileItem;
 import org.workflowsim.Task;
-import org.workflowsim.utils.Parameters;
 
 /**
  * The Distributed HEFT planning algorithm. The difference compared to HEFT:
@@ -30,6 +28,11 @@ import org.workflowsim.utils.Parameters;
  * 2. Instead of using the average communication cost in HEFT, we also aim to 
  * optimize the communication cost
  *
+ * Tasks are scheduled level by level: a task is ready once all its parents
+ * have been scheduled in an earlier round. Ready tasks are found with
+ * in-degree counters and the bytes transferred along each edge are computed
+ * once by a TaskGraph, so the memory is O(V + E + M).
+ *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
  * @date Nov 10, 2013
@@ -42,98 +45,98 @@ public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     @Override
     public void run() {
 
-        List<Vm> vmList = getVmList();
-        double [][] bandwidths = new double[vmList.size()][vmList.size()];
-        
-        for(int i = 0; i < vmList.size(); i++){
-            for(int j = i ; j < vmList.size(); j++){
-                bandwidths[i][j] = bandwidths [j][i] = Math.min(vmList.get(i).getBw(), vmList.get(j).getBw());
-            }
-        }
-        for (Object vmObject : getVmList()) {
-            Vm vm =  (Vm)vmObject;
-            vm.getBw();
-        }
-        
+        List<Task> taskList = getTaskList();
         int vmNum = getVmList().size();
-        int taskNum = getTaskList().size();
-        double [] availableTime = new double[vmNum];
-        //cloudlet id starts from 1
-        double [][] earliestStartTime = new double[taskNum + 1][vmNum];
-        double [][] earliestFinishTime = new double[taskNum + 1][vmNum];
-        int [] allocation = new int[taskNum + 1];
-        
-        List<Task> taskList = new ArrayList(getTaskList());
-        List<Task> readyList = new ArrayList<>();
-        while(!taskList.isEmpty()){
-            readyList.clear();
-            for(Task task : taskList){
-                boolean ready = true;
-                for(Task parent: task.getParentList()){
-                    if(taskList.contains(parent)){
-                        ready = false;
-                        break;
-                    }
-                }
-                if(ready){
-                    readyList.add(task);
-                }
+        Vm[] vms = new Vm[vmNum];
+        int taskNum = taskList.size();
+
+        double[] mips = new double[vmNum];
+        double[] bw = new double[vmNum];
+        for (int i = 0; i < vmNum; i++) {
+            vms[i] = (Vm) getVmList().get(i);
+            mips[i] = vms[i].getMips();
+            bw[i] = vms[i].getBw();
+        }
+
+        /**
+         * The parents of task i are parentIndex[parentStart[i] ..
+         * parentStart[i + 1] - 1] and dataSizes[parentEdge[..]] holds the
+         * bytes each of them sends to task i. The children of task i are
+         * childIndex[childStart[i] .. childStart[i + 1] - 1].
+         */
+        TaskGraph graph = new TaskGraph(taskList);
+        int[] parentStart = graph.getParentStart();
+        int[] parentIndex = graph.getParentIndex();
+        int[] parentEdge = graph.getParentEdge();
+        double[] dataSizes = graph.getDataSizes();
+        int[] childStart = graph.getChildStart();
+        int[] childIndex = graph.getChildIndex();
+
+        int[] inDegree = new int[taskNum];
+        int[] readyList = new int[taskNum];
+        int readyNum = 0;
+        for (int i = 0; i < taskNum; i++) {
+            inDegree[i] = parentStart[i + 1] - parentStart[i];
+            if (inDegree[i] == 0) {
+                readyList[readyNum++] = i;
             }
-            taskList.removeAll(readyList);
+        }
+
+        double[] availableTime = new double[vmNum];
+        double[] finishTime = new double[taskNum];
+        int[] allocation = new int[taskNum];
+        int[] nextList = new int[taskNum];
+        int scheduled = 0;
+        while (readyNum > 0) {
+            int nextNum = 0;
             //schedule readylist
-            for(Task task: readyList){
-                long [] fileSizes = new long[task.getParentList().size()];
-                int parentIndex = 0;
-                for(Task parent: task.getParentList()){
-                    long fileSize = 0;
-                    for(FileItem file : task.getFileList()){
-                        if(file.getType()==Parameters.FileType.INPUT){
-                            for(FileItem file2 : parent.getFileList()){
-                                if(file2.getType() == Parameters.FileType.OUTPUT && file2.getName().equals(file.getName()))
-                                {
-                                    fileSize += file.getSize();
-                                }
-                            }
-                        }
-                    }
-                    fileSizes[parentIndex] = fileSize;
-                    parentIndex ++;
-                }     
-                
+            for (int r = 0; r < readyNum; r++) {
+                int task = readyList[r];
+                double length = taskList.get(task).getCloudletLength();
+
                 double minTime = Double.MAX_VALUE;
                 int minTimeIndex = 0;
-                
-                for(int vmIndex = 0; vmIndex < getVmList().size(); vmIndex++){
-                    Vm vm = (Vm)getVmList().get(vmIndex);
-                    double startTime = availableTime[vm.getId()];
-                    parentIndex = 0;
-                    for(Task parent: task.getParentList()){
-                        int allocatedVmId = allocation[parent.getCloudletId()];
-                        double actualFinishTime = earliestFinishTime[parent.getCloudletId()][allocatedVmId];
-                        double communicationTime = fileSizes[parentIndex] / bandwidths[allocatedVmId][vm.getId()];
-                        
-                        if(actualFinishTime + communicationTime > startTime){
-                            startTime = actualFinishTime + communicationTime;
+
+                for (int vmIndex = 0; vmIndex < vmNum; vmIndex++) {
+                    double startTime = availableTime[vmIndex];
+                    for (int pos = parentStart[task]; pos < parentStart[task + 1]; pos++) {
+                        int parent = parentIndex[pos];
+                        int allocatedVm = allocation[parent];
+                        double communicationTime = dataSizes[parentEdge[pos]]
+                                / Math.min(bw[allocatedVm], bw[vmIndex]);
+                        if (finishTime[parent] + communicationTime > startTime) {
+                            startTime = finishTime[parent] + communicationTime;
                         }
-                        parentIndex ++;
                     }
-                    earliestStartTime[task.getCloudletId()][vm.getId()] = startTime;
-                    double runtime = task.getCloudletLength() / vm.getMips();
-                    earliestFinishTime[task.getCloudletId()][vm.getId()] = runtime + startTime;
-                    
-                    if(runtime + startTime < minTime){
+                    double runtime = length / mips[vmIndex];
+
+                    if (runtime + startTime < minTime) {
                         minTime = runtime + startTime;
                         minTimeIndex = vmIndex;
                     }
                 }
-                
-                allocation[task.getCloudletId()] = minTimeIndex;//we do not really need it use task.getVmId
-                task.setVmId(minTimeIndex);
+
+                allocation[task] = minTimeIndex;
+                finishTime[task] = minTime;
+                taskList.get(task).setVmId(vms[minTimeIndex].getId());
                 availableTime[minTimeIndex] = minTime;
+                scheduled++;
+
+                for (int edge = childStart[task]; edge < childStart[task + 1]; edge++) {
+                    if (--inDegree[childIndex[edge]] == 0) {
+                        nextList[nextNum++] = childIndex[edge];
+                    }
+                }
             }
+            // keep the order of the task list within a level
+            Arrays.sort(nextList, 0, nextNum);
+            int[] swap = readyList;
+            readyList = nextList;
+            nextList = swap;
+            readyNum = nextNum;
+        }
+        if (scheduled < taskNum) {
+            throw new IllegalArgumentException("The workflow is not a DAG");
         }
-        
     }
-
-
 }
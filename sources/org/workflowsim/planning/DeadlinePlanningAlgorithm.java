@@ -0,0 +1,332 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Task;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * The deadline-constrained planning algorithm, a deadline-distributed HEFT.
+ * It minimizes the cost of a workflow while meeting Parameters.getDeadline().
+ *
+ * 1. The earliest finish time of each task on the fastest vm with enough pes
+ * gives the critical path. If the critical path is longer than the deadline, the
+ * deadline cannot be met and the tasks are planned for the earliest finish
+ * time as in HEFT.
+ * 2. Otherwise the deadline is distributed over the tasks in proportion to
+ * their earliest finish time, which gives every task a sub-deadline.
+ * 3. Tasks are visited in HEFT order (upward rank) and each one goes to the
+ * cheapest vm that finishes it before its sub-deadline, or to the vm that
+ * finishes it first if there is none. Vms with fewer pes than the task are
+ * skipped, the planner fails if no vm has enough pes.
+ *
+ * The cost of a task on a vm is the CPU cost (CondorVM.getCost() per second)
+ * plus the bandwidth cost (CondorVM.getCostPerBW() per MB) of the input
+ * coming from other vms. The planner is O(V log V + (V + E) * M log k), k
+ * being the number of tasks on a vm.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class DeadlinePlanningAlgorithm extends BasePlanningAlgorithm {
+
+    private double[] lengths;
+    private int[] taskPes;
+    private double[] mips;
+    private int[] vmPes;
+    private double[] cpuCost;
+    private double[] bwCost;
+    /**
+     * The children of task i are childIndex[childStart[i] ..
+     * childStart[i + 1] - 1], the data sent along the edge (MB) is in
+     * dataSizes at the same position.
+     */
+    private int[] childStart;
+    private int[] childIndex;
+    private double[] dataSizes;
+    /**
+     * The parents of task i are parentIndex[parentStart[i] ..
+     * parentStart[i + 1] - 1], parentEdge is the position of the edge in
+     * childIndex/dataSizes.
+     */
+    private int[] parentStart;
+    private int[] parentIndex;
+    private int[] parentEdge;
+    private TaskGraph graph;
+    private double averageBandwidth;
+    private boolean feasible;
+    private double makespan;
+    private double totalCost;
+
+    public DeadlinePlanningAlgorithm() {
+    }
+
+    /**
+     * Checks whether the deadline is met by the plan
+     *
+     * @return whether the deadline is met
+     */
+    public boolean isFeasible() {
+        return this.feasible;
+    }
+
+    /**
+     * Gets the makespan expected from the plan
+     *
+     * @return the makespan
+     */
+    public double getMakespan() {
+        return this.makespan;
+    }
+
+    /**
+     * Gets the cost expected from the plan
+     *
+     * @return the cost
+     */
+    public double getCost() {
+        return this.totalCost;
+    }
+
+    /**
+     * The main function
+     */
+    @Override
+    public void run() {
+        List<Task> taskList = getTaskList();
+        int taskNum = taskList.size();
+        int vmNum = getVmList().size();
+        if (taskNum == 0 || vmNum == 0) {
+            return;
+        }
+        buildGraph();
+        double deadline = Parameters.getDeadline();
+        int[] order = graph.getTopologicalOrder();
+
+        /**
+         * Earliest finish times on the fastest vms (critical path).
+         */
+        double[] eft = new double[taskNum];
+        double criticalPath = 0.0;
+        for (int task : order) {
+            double start = 0.0;
+            for (int pos = parentStart[task]; pos < parentStart[task + 1]; pos++) {
+                start = Math.max(start, eft[parentIndex[pos]]
+                        + dataSizes[parentEdge[pos]] * 8 / averageBandwidth);
+            }
+            eft[task] = start + getFastestComputationCost(task);
+            criticalPath = Math.max(criticalPath, eft[task]);
+        }
+        boolean constrained = deadline > 0 && criticalPath <= deadline;
+        if (deadline > 0 && !constrained) {
+            Log.printLine("Deadline planner: the deadline " + deadline
+                    + " is infeasible, the critical path takes " + criticalPath);
+        }
+        double[] subDeadline = new double[taskNum];
+        for (int task = 0; task < taskNum; task++) {
+            subDeadline[task] = constrained ? eft[task] * deadline / criticalPath : 0.0;
+        }
+
+        /**
+         * Upward ranks give the HEFT order.
+         */
+        final double[] rank = new double[taskNum];
+        for (int i = taskNum - 1; i >= 0; i--) {
+            int task = order[i];
+            double avg = 0.0;
+            int eligible = 0;
+            for (int vm = 0; vm < vmNum; vm++) {
+                if (vmPes[vm] >= taskPes[task]) {
+                    avg += getComputationCost(task, vm);
+                    eligible++;
+                }
+            }
+            avg /= eligible;
+            double max = 0.0;
+            for (int edge = childStart[task]; edge < childStart[task + 1]; edge++) {
+                max = Math.max(max, dataSizes[edge] * 8 / averageBandwidth
+                        + rank[childIndex[edge]]);
+            }
+            rank[task] = avg + max;
+        }
+        Integer[] priority = new Integer[taskNum];
+        for (int i = 0; i < taskNum; i++) {
+            priority[i] = i;
+        }
+        Arrays.sort(priority, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(rank[b], rank[a]);
+            }
+        });
+
+        GapIndex[] schedules = new GapIndex[vmNum];
+        for (int vm = 0; vm < vmNum; vm++) {
+            schedules[vm] = new GapIndex();
+        }
+        double[] finishTimes = new double[taskNum];
+        int[] allocation = new int[taskNum];
+        makespan = 0.0;
+        totalCost = 0.0;
+        for (int task : priority) {
+            int cheapest = -1;
+            double cheapestCost = Double.MAX_VALUE;
+            double cheapestStart = 0.0;
+            int earliest = -1;
+            double earliestFinish = Double.MAX_VALUE;
+            double earliestStart = 0.0;
+            for (int vm = 0; vm < vmNum; vm++) {
+                if (vmPes[vm] < taskPes[task]) {
+                    continue;
+                }
+                double readyTime = 0.0;
+                double received = 0.0;
+                for (int pos = parentStart[task]; pos < parentStart[task + 1]; pos++) {
+                    int parent = parentIndex[pos];
+                    double time = finishTimes[parent];
+                    if (allocation[parent] != vm) {
+                        double size = dataSizes[parentEdge[pos]];
+                        time += size * 8 / Math.min(getVmBw(allocation[parent]), getVmBw(vm));
+                        received += size;
+                    }
+                    readyTime = Math.max(readyTime, time);
+                }
+                double runtime = getComputationCost(task, vm);
+                double start = schedules[vm].findStart(readyTime, runtime);
+                double finish = start + runtime;
+                if (finish < earliestFinish) {
+                    earliestFinish = finish;
+                    earliestStart = start;
+                    earliest = vm;
+                }
+                if (constrained && finish <= subDeadline[task]) {
+                    double cost = runtime * cpuCost[vm] + received * bwCost[vm];
+                    if (cost < cheapestCost) {
+                        cheapestCost = cost;
+                        cheapestStart = start;
+                        cheapest = vm;
+                    }
+                }
+            }
+            int vm = cheapest >= 0 ? cheapest : earliest;
+            double start = cheapest >= 0 ? cheapestStart : earliestStart;
+            double runtime = getComputationCost(task, vm);
+            schedules[vm].occupy(start, runtime);
+            finishTimes[task] = start + runtime;
+            allocation[task] = vm;
+            makespan = Math.max(makespan, finishTimes[task]);
+            double received = 0.0;
+            for (int pos = parentStart[task]; pos < parentStart[task + 1]; pos++) {
+                if (allocation[parentIndex[pos]] != vm) {
+                    received += dataSizes[parentEdge[pos]];
+                }
+            }
+            totalCost += runtime * cpuCost[vm] + received * bwCost[vm];
+            taskList.get(task).setVmId(((CondorVM) getVmList().get(vm)).getId());
+        }
+        feasible = deadline <= 0 || makespan <= deadline;
+        Log.printLine("Deadline planner: makespan " + makespan + " cost " + totalCost
+                + (feasible ? "" : ", the deadline " + deadline + " is missed"));
+    }
+
+    private double getVmBw(int vm) {
+        return ((CondorVM) getVmList().get(vm)).getBw();
+    }
+
+    /**
+     * Gets the time in seconds to compute a task in a vm.
+     *
+     * @param task the task index
+     * @param vm the vm index
+     * @return the computation cost
+     */
+    private double getComputationCost(int task, int vm) {
+        if (vmPes[vm] < taskPes[task]) {
+            return Double.MAX_VALUE;
+        }
+        return lengths[task] / mips[vm];
+    }
+
+    /**
+     * Gets the time in seconds to compute a task in the fastest vm that has
+     * enough pes for it.
+     *
+     * @param task the task index
+     * @return the computation cost
+     * @throws IllegalArgumentException if no vm has enough pes
+     */
+    private double getFastestComputationCost(int task) {
+        double fastest = 0.0;
+        for (int vm = 0; vm < mips.length; vm++) {
+            if (vmPes[vm] >= taskPes[task]) {
+                fastest = Math.max(fastest, mips[vm]);
+            }
+        }
+        if (fastest == 0.0) {
+            throw new IllegalArgumentException("Task " + getTaskList().get(task).getCloudletId()
+                    + " needs " + taskPes[task] + " pes, no vm has as many");
+        }
+        return lengths[task] / fastest;
+    }
+
+    /**
+     * Builds the task and vm arrays and the parent and child arrays with the
+     * data sent along each edge.
+     */
+    private void buildGraph() {
+        List<Task> taskList = getTaskList();
+        int taskNum = taskList.size();
+        int vmNum = getVmList().size();
+        mips = new double[vmNum];
+        vmPes = new int[vmNum];
+        cpuCost = new double[vmNum];
+        bwCost = new double[vmNum];
+        averageBandwidth = 0.0;
+        for (int i = 0; i < vmNum; i++) {
+            CondorVM vm = (CondorVM) getVmList().get(i);
+            mips[i] = vm.getMips();
+            vmPes[i] = vm.getNumberOfPes();
+            cpuCost[i] = vm.getCost();
+            bwCost[i] = vm.getCostPerBW();
+            averageBandwidth += vm.getBw();
+        }
+        averageBandwidth /= vmNum;
+
+        lengths = new double[taskNum];
+        taskPes = new int[taskNum];
+        for (int i = 0; i < taskNum; i++) {
+            Task task = taskList.get(i);
+            lengths[i] = task.getCloudletTotalLength();
+            taskPes[i] = task.getNumberOfPes();
+        }
+        graph = new TaskGraph(taskList);
+        childStart = graph.getChildStart();
+        childIndex = graph.getChildIndex();
+        parentStart = graph.getParentStart();
+        parentIndex = graph.getParentIndex();
+        parentEdge = graph.getParentEdge();
+        double[] bytes = graph.getDataSizes();
+        dataSizes = new double[bytes.length];
+        for (int edge = 0; edge < bytes.length; edge++) {
+            dataSizes[edge] = bytes[edge] / Consts.MILLION;
+        }
+    }
+}
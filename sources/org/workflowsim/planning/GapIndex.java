@@ -0,0 +1,265 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+/**
+ * GapIndex keeps the idle intervals (gaps) of a vm in a balanced binary search
+ * tree (treap) keyed by the start of the gap. Every node also stores the
+ * length of the largest gap in its subtree, so the earliest gap that can hold
+ * a task of a given length after a ready time is found in O(log k), k being
+ * the number of gaps. Reserving a slot removes one gap and adds at most two,
+ * also O(log k).
+ *
+ * The vm is initially idle from 0 to infinity, so a slot can always be found.
+ * This is used by insertion-based list schedulers such as HEFT.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class GapIndex {
+
+    private static class Node {
+
+        double start;
+        double end;
+        /**
+         * The largest gap length in this subtree.
+         */
+        double max;
+        int priority;
+        Node left;
+        Node right;
+
+        Node(double start, double end, int priority) {
+            this.start = start;
+            this.end = end;
+            this.max = end - start;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * The tolerance of the fit test. A slot whose end is less than this after
+     * the end of a gap still fits, so that findStart and occupy agree whether
+     * they compute the end of the slot or the length of the gap.
+     */
+    private static final double EPSILON = 1.0e-9;
+    private Node root;
+    /**
+     * State of the xorshift generator of node priorities. A fixed seed keeps
+     * the shape of the tree (and the run time) reproducible.
+     */
+    private int seed = 0x2545F491;
+    /**
+     * The number of gaps.
+     */
+    private int size;
+
+    /**
+     * Initialize a GapIndex with a vm idle from 0 to infinity
+     */
+    public GapIndex() {
+        this.root = new Node(0.0, Double.POSITIVE_INFINITY, nextPriority());
+        this.size = 1;
+    }
+
+    /**
+     * Gets the number of gaps
+     *
+     * @return the number of gaps
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Finds the earliest time a task can start, that is not before readyTime
+     * and with an idle interval of at least length from there.
+     *
+     * @param readyTime the time the task is ready
+     * @param length the time the task takes
+     * @return the start time
+     */
+    public double findStart(double readyTime, double length) {
+        Node gap = floor(readyTime);
+        if (gap != null && fits(readyTime, length, gap.end)) {
+            return readyTime;
+        }
+        return firstFit(this.root, readyTime, length).start;
+    }
+
+    /**
+     * Reserves [start, start + length). The interval must be idle, which is
+     * the case for a start returned by findStart.
+     *
+     * @param start the start time
+     * @param length the time the task takes
+     */
+    public void occupy(double start, double length) {
+        if (length <= 0.0) {
+            return;
+        }
+        Node gap = floor(start);
+        if (gap == null || !fits(start, length, gap.end)) {
+            throw new IllegalArgumentException("The slot " + start + " is not idle");
+        }
+        double gapStart = gap.start;
+        double gapEnd = gap.end;
+        this.root = remove(this.root, gapStart);
+        this.size--;
+        if (start > gapStart) {
+            this.root = insert(this.root, new Node(gapStart, start, nextPriority()));
+            this.size++;
+        }
+        if (gapEnd > start + length) {
+            this.root = insert(this.root, new Node(start + length, gapEnd, nextPriority()));
+            this.size++;
+        }
+    }
+
+    /**
+     * Whether a slot of length from start fits in a gap that ends at end
+     */
+    private static boolean fits(double start, double length, double end) {
+        return start + length <= end + EPSILON;
+    }
+
+    /**
+     * Gets the gap with the largest start not after time
+     */
+    private Node floor(double time) {
+        Node node = this.root;
+        Node floor = null;
+        while (node != null) {
+            if (node.start <= time) {
+                floor = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return floor;
+    }
+
+    /**
+     * Gets the gap with the smallest start after readyTime that is at least
+     * length long.
+     */
+    private Node firstFit(Node node, double readyTime, double length) {
+        if (node == null || node.max < length - EPSILON) {
+            return null;
+        }
+        if (node.start > readyTime) {
+            Node gap = firstFit(node.left, readyTime, length);
+            if (gap != null) {
+                return gap;
+            }
+            if (fits(node.start, length, node.end)) {
+                return node;
+            }
+        }
+        return firstFit(node.right, readyTime, length);
+    }
+
+    private Node insert(Node node, Node item) {
+        if (node == null) {
+            return item;
+        }
+        if (item.start < node.start) {
+            node.left = insert(node.left, item);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, item);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node remove(Node node, double start) {
+        if (node == null) {
+            return null;
+        }
+        if (start < node.start) {
+            node.left = remove(node.left, start);
+        } else if (start > node.start) {
+            node.right = remove(node.right, start);
+        } else {
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Merges two treaps, all the keys of left are smaller than those of right
+     */
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private void update(Node node) {
+        double max = node.end - node.start;
+        if (node.left != null && node.left.max > max) {
+            max = node.left.max;
+        }
+        if (node.right != null && node.right.max > max) {
+            max = node.right.max;
+        }
+        node.max = max;
+    }
+
+    private int nextPriority() {
+        this.seed ^= this.seed << 13;
+        this.seed ^= this.seed >>> 17;
+        this.seed ^= this.seed << 5;
+        return this.seed;
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Task;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.RandomService;
+
+/**
+ * The genetic planning algorithm. A chromosome is the vm of each task, its
+ * fitness is the makespan estimated by a ScheduleEvaluator (list scheduling in
+ * memory, no simulation). The first population holds the HEFT plan, mutations
+ * of it and random plans, the best plans are always kept, so the result is
+ * never worse than HEFT under the evaluator.
+ *
+ * The population size, the number of generations and the wall-clock budget
+ * are set with Parameters.setGeneticParameters. Chromosomes are evaluated in
+ * parallel on Parameters.getPlanningThreads() threads; the random choices are
+ * made by one generator, the "planning.genetic" stream of RandomService unless
+ * a seed is given, so the plan does not depend on the number of threads.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class GeneticPlanningAlgorithm extends BasePlanningAlgorithm {
+
+    /**
+     * The number of best chromosomes copied to the next generation.
+     */
+    private static final int ELITES = 2;
+    /**
+     * The number of chromosomes compared in a tournament selection.
+     */
+    private static final int TOURNAMENT = 3;
+    private final Random random;
+    private ScheduleEvaluator evaluator;
+
+    /**
+     * Initialize a GeneticPlanningAlgorithm with the stream of RandomService
+     */
+    public GeneticPlanningAlgorithm() {
+        this.random = RandomService.getRandom("planning.genetic");
+    }
+
+    /**
+     * Initialize a GeneticPlanningAlgorithm
+     *
+     * @param seed the seed of the random choices
+     */
+    public GeneticPlanningAlgorithm(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * The main function
+     */
+    @Override
+    public void run() throws Exception {
+        long start = System.currentTimeMillis();
+        List<Task> taskList = getTaskList();
+        List<CondorVM> vmList = getCondorVmList();
+        int taskNum = taskList.size();
+        int vmNum = vmList.size();
+        if (taskNum == 0 || vmNum == 0) {
+            return;
+        }
+        evaluator = new ScheduleEvaluator(taskList, vmList);
+
+        int size = Parameters.getPopulationSize();
+        int[][] population = new int[size][];
+        int[] heft = getHeftPlan();
+        population[0] = heft;
+        for (int i = 1; i < size; i++) {
+            if (i % 2 == 1) {
+                population[i] = population[0].clone();
+                mutate(population[i], 0.1);
+            } else {
+                population[i] = new int[taskNum];
+                for (int t = 0; t < taskNum; t++) {
+                    population[i][t] = random.nextInt(vmNum);
+                }
+            }
+        }
+
+        int threads = Math.min(size, Parameters.getPlanningThreads());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            double[] fitness = evaluate(executor, population, threads);
+            int generation = 0;
+            for (; generation < Parameters.getGenerations(); generation++) {
+                if (Parameters.getPlanningBudget() > 0
+                        && System.currentTimeMillis() - start >= Parameters.getPlanningBudget()) {
+                    break;
+                }
+                int[][] next = new int[size][];
+                int[] best = getBest(fitness, Math.min(ELITES, size));
+                for (int i = 0; i < best.length; i++) {
+                    next[i] = population[best[i]];
+                }
+                for (int i = best.length; i < size; i++) {
+                    int[] mother = population[select(fitness)];
+                    int[] father = population[select(fitness)];
+                    next[i] = crossover(mother, father);
+                    mutate(next[i], 1.0 / taskNum);
+                }
+                population = next;
+                fitness = evaluate(executor, population, threads);
+            }
+            int best = getBest(fitness, 1)[0];
+            Log.printLine("Genetic planner: estimated makespan " + fitness[best]
+                    + " after " + generation + " generations (HEFT "
+                    + evaluator.evaluate(heft) + ")");
+            for (int t = 0; t < taskNum; t++) {
+                taskList.get(t).setVmId(vmList.get(population[best][t]).getId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Gets the HEFT plan as vm indexes
+     *
+     * @return the vm index of each task
+     */
+    private int[] getHeftPlan() {
+        List<Task> taskList = getTaskList();
+        List<CondorVM> vmList = getCondorVmList();
+        HEFTPlanningAlgorithm heft = new HEFTPlanningAlgorithm();
+        heft.setTaskList(taskList);
+        heft.setVmList(vmList);
+        heft.run();
+        Map<Integer, Integer> vmIndex = new HashMap<>();
+        for (int i = 0; i < vmList.size(); i++) {
+            vmIndex.put(vmList.get(i).getId(), i);
+        }
+        int[] plan = new int[taskList.size()];
+        for (int t = 0; t < plan.length; t++) {
+            plan[t] = vmIndex.get(taskList.get(t).getVmId());
+        }
+        return plan;
+    }
+
+    /**
+     * Gets the vm list as CondorVMs
+     *
+     * @return the vms in the order of the vm list
+     */
+    private List<CondorVM> getCondorVmList() {
+        List<CondorVM> vmList = new ArrayList<>();
+        for (Object vm : getVmList()) {
+            vmList.add((CondorVM) vm);
+        }
+        return vmList;
+    }
+
+    /**
+     * Evaluates all chromosomes, each thread takes a range of them.
+     */
+    private double[] evaluate(ExecutorService executor, final int[][] population, int threads)
+            throws Exception {
+        final double[] fitness = new double[population.length];
+        int chunk = (population.length + threads - 1) / threads;
+        List<Future<Void>> results = new ArrayList<>();
+        for (int from = 0; from < population.length; from += chunk) {
+            final int start = from;
+            final int end = Math.min(from + chunk, population.length);
+            results.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = start; i < end; i++) {
+                        fitness[i] = evaluator.evaluate(population[i]);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> result : results) {
+            result.get();
+        }
+        return fitness;
+    }
+
+    /**
+     * Gets the indexes of the num best chromosomes, ties are broken by index
+     */
+    private int[] getBest(double[] fitness, int num) {
+        int[] best = new int[num];
+        boolean[] taken = new boolean[fitness.length];
+        for (int k = 0; k < num; k++) {
+            int min = -1;
+            for (int i = 0; i < fitness.length; i++) {
+                if (!taken[i] && (min < 0 || fitness[i] < fitness[min])) {
+                    min = i;
+                }
+            }
+            taken[min] = true;
+            best[k] = min;
+        }
+        return best;
+    }
+
+    /**
+     * Tournament selection
+     */
+    private int select(double[] fitness) {
+        int best = random.nextInt(fitness.length);
+        for (int k = 1; k < TOURNAMENT; k++) {
+            int i = random.nextInt(fitness.length);
+            if (fitness[i] < fitness[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Two-point crossover
+     */
+    private int[] crossover(int[] mother, int[] father) {
+        int[] child = mother.clone();
+        int a = random.nextInt(child.length);
+        int b = random.nextInt(child.length);
+        for (int t = Math.min(a, b); t <= Math.max(a, b); t++) {
+            child[t] = father[t];
+        }
+        return child;
+    }
+
+    /**
+     * Moves each task to a random vm with a probability
+     */
+    private void mutate(int[] chromosome, double rate) {
+        int vmNum = evaluator.getVmNum();
+        for (int t = 0; t < chromosome.length; t++) {
+            if (random.nextDouble() < rate) {
+                chromosome[t] = random.nextInt(vmNum);
+            }
+        }
+    }
+}
@@ -16,68 +16,98 @@
 package org.workflowsim.planning;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.cloudbus.cloudsim.Consts;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
-import org.workflowsim.FileItem;
 import org.workflowsim.Task;
 import org.workflowsim.utils.Parameters;
 
 /**
  * The HEFT planning algorithm.
  *
+ * Tasks and vms are addressed by their index in the task list and the vm
+ * list. Computation costs are computed on demand from the task length and the
+ * vm mips, transfer costs are stored per edge along the child lists (CSR) and
+ * ranks and finish times are kept in primitive arrays, so the memory is
+ * O(V + E + M) instead of O(V * V + V * M). Ranks are computed in reverse
+ * topological order and, if Parameters.getPlanningThreads() is larger than 1,
+ * the finish time of a task is evaluated on the vms in parallel. The idle
+ * slots of each vm are kept in a GapIndex, so the insertion slot is found in
+ * O(log k) for k tasks on the vm.
+ *
  * @author Pedro Paulo Vezzá Campos
  * @date Oct 12, 2013
  */
 public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
-    private Map<Task, Map<CondorVM, Double>> computationCosts;          // map<任务,map<虚拟机,任务在虚拟机上的计算成本>>  计算成本
-    private Map<Task, Map<Task, Double>> transferCosts;
-    private Map<Task, Double> rank;
-    private Map<CondorVM, List<Event>> schedules;
-    private Map<Task, Double> earliestFinishTimes;
+    /**
+     * The length of each task (MI).
+     */
+    private double[] lengths;
+    /**
+     * The number of pes each task requires.
+     */
+    private int[] taskPes;
+    /**
+     * The mips of each vm.
+     */
+    private double[] mips;
+    /**
+     * The number of pes of each vm.
+     */
+    private int[] vmPes;
+    /**
+     * The children of task i are childIndex[childStart[i] ..
+     * childStart[i + 1] - 1], the transfer cost of the edge is in
+     * transferCosts at the same position.
+     */
+    private int[] childStart;
+    private int[] childIndex;
+    private double[] transferCosts;
+    /**
+     * The parents of task i are parentIndex[parentStart[i] ..
+     * parentStart[i + 1] - 1], parentEdge is the position of the edge in
+     * childIndex/transferCosts.
+     */
+    private int[] parentStart;
+    private int[] parentIndex;
+    private int[] parentEdge;
+    private TaskGraph graph;
+    private double[] rank;
+    private double[] earliestFinishTimes;
+    /**
+     * The vm (index) each task is allocated to, -1 if not yet allocated.
+     */
+    private int[] allocation;
+    /**
+     * The idle time slots of each vm.
+     */
+    private GapIndex[] schedules;
+    /**
+     * The id of each vm, used to break ties.
+     */
+    private int[] vmIds;
+    /**
+     * The finish time of the task being allocated on each vm.
+     */
+    private double[] finishTimes;
+    /**
+     * Evaluates the vms in parallel, null if Parameters.getPlanningThreads()
+     * is 1.
+     */
+    private ExecutorService executor;
     private double averageBandwidth;
 
-    private class Event {        //内部类 事件类
-
-        public double start;     //开始
-        public double finish;    //完成
-
-        public Event(double start, double finish) {
-            this.start = start;
-            this.finish = finish;
-        }
-    }
-
-    private class TaskRank implements Comparable<TaskRank> {    //内部类，任务排名类
-
-        public Task task;     //任务
-        public Double rank;   //排名
-
-        public TaskRank(Task task, Double rank) {
-            this.task = task;
-            this.rank = rank;
-        }
-
-        @Override
-        public int compareTo(TaskRank o) {
-            return o.rank.compareTo(rank);  //从大到小 排列
-        }
-
-
-    }
-
     public HEFTPlanningAlgorithm() {
-        computationCosts = new HashMap<>();
-        transferCosts = new HashMap<>();
-        rank = new HashMap<>();
-        earliestFinishTimes = new HashMap<>();
-        schedules = new HashMap<>();
     }
 
     /**
@@ -90,9 +120,10 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
         averageBandwidth = calculateAverageBandwidth();   //虚拟机的可用平均带宽
 
-        for (Object vmObject : getVmList()) {
-            CondorVM vm = (CondorVM) vmObject;
-            schedules.put(vm, new ArrayList<>());
+        int vmNum = getVmList().size();
+        schedules = new GapIndex[vmNum];
+        for (int i = 0; i < vmNum; i++) {
+            schedules[i] = new GapIndex();
         }
 
         // Prioritization phase
@@ -101,7 +132,19 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
         calculateRanks();
 
         // Selection phase
-        allocateTasks();
+        finishTimes = new double[vmNum];
+        if (Parameters.getPlanningThreads() > 1 && vmNum > 1) {
+            executor = Executors.newFixedThreadPool(
+                    Math.min(Parameters.getPlanningThreads(), vmNum));
+        }
+        try {
+            allocateTasks();
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
     }
 
     /**
@@ -119,181 +162,225 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     }
 
     /**
-     * Populates the computationCosts field with the time in seconds to compute
-     * a task in a vm.
-     * 使用在虚拟机中计算任务的时间（秒）填充“计算成本”字段。
-     * 使用任务在虚拟机中的计算事件（秒）来填充“计算成本”字段。
+     * Collects the task lengths and vm mips the computation costs are computed
+     * from.
      */
     private void calculateComputationCosts() {
-        for (Task task : getTaskList()) {  //遍历所有任务
-            Map<CondorVM, Double> costsVm = new HashMap<>();   //创建 该任务在所有  虚拟机-计算成本映射 虚拟机上的计算成本map<虚拟机对象，计算成本>
-            for (Object vmObject : getVmList()) {
-                CondorVM vm = (CondorVM) vmObject;
-                if (vm.getNumberOfPes() < task.getNumberOfPes()) { //判断虚拟机的PE数量是否满足 任务需求的PE数量
-                    costsVm.put(vm, Double.MAX_VALUE);  //不满足,将该任务在该虚拟机上的计算成本设为无穷大
-                } else {   //满足,计算出"计算成本"，并存入 该任务在所有虚拟机上的计算成本map<虚拟机对象，计算成本>中
-                    costsVm.put(vm,
-                            task.getCloudletTotalLength() / vm.getMips());
-                }
-            }
-            computationCosts.put(task, costsVm); //任务-(虚拟机计算成本映射) 映射
+        List<Task> taskList = getTaskList();
+        lengths = new double[taskList.size()];
+        taskPes = new int[taskList.size()];
+        for (int i = 0; i < taskList.size(); i++) {
+            Task task = taskList.get(i);
+            lengths[i] = task.getCloudletTotalLength();
+            taskPes[i] = task.getNumberOfPes();
+        }
+        int vmNum = getVmList().size();
+        mips = new double[vmNum];
+        vmPes = new int[vmNum];
+        vmIds = new int[vmNum];
+        for (int i = 0; i < vmNum; i++) {
+            CondorVM vm = (CondorVM) getVmList().get(i);
+            mips[i] = vm.getMips();
+            vmPes[i] = vm.getNumberOfPes();
+            vmIds[i] = vm.getId();
         }
     }
 
     /**
-     * Populates the transferCosts map with the time in seconds to transfer all
-     * files from each parent to each child
-     * 在transferCosts映射中填充将所有文件从每个父级传输到每个子级的时间（秒）
+     * Gets the time in seconds to compute a task in a vm.
+     * 任务在虚拟机中的计算时间（秒）
+     *
+     * @param task the task index
+     * @param vm the vm index
+     * @return the computation cost
      */
-    private void calculateTransferCosts() {
-        // Initializing the matrix
-        for (Task task1 : getTaskList()) {  //task1,父任务
-            Map<Task, Double> taskTransferCosts = new HashMap<>();   //创建 该父任务下的 子任务-传输成本 映射
-            for (Task task2 : getTaskList()) {  //子任务
-                taskTransferCosts.put(task2, 0.0);        //初始化 该父任务下的 子任务-传输成本 映射 ，传输成本初始值为0.0s ；
-            }
-            transferCosts.put(task1, taskTransferCosts);  // 初始化 任务传输成本 映射  父任务-(子任务-传输成本)
+    private double getComputationCost(int task, int vm) {
+        if (vmPes[vm] < taskPes[task]) { //判断虚拟机的PE数量是否满足 任务需求的PE数量
+            return Double.MAX_VALUE;
         }
+        return lengths[task] / mips[vm];
+    }
 
-        // Calculating the actual values
-        for (Task parent : getTaskList()) {   //获取父任务
-            for (Task child : parent.getChildList()) {   //获取子任务
-                transferCosts.get(parent).put(child, calculateTransferCost(parent, child)); //给任务传输成本 映射  父任务-(子任务-传输成本) 的传输成本赋值
-            }
+    /**
+     * Populates the per-edge transferCosts with the time in seconds to
+     * transfer all files from each parent to each child
+     * 在transferCosts中填充将所有文件从每个父级传输到每个子级的时间（秒）
+     */
+    private void calculateTransferCosts() {
+        graph = new TaskGraph(getTaskList());
+        childStart = graph.getChildStart();
+        childIndex = graph.getChildIndex();
+        parentStart = graph.getParentStart();
+        parentIndex = graph.getParentIndex();
+        parentEdge = graph.getParentEdge();
+        double[] dataSizes = graph.getDataSizes();
+        transferCosts = new double[dataSizes.length];
+        for (int edge = 0; edge < dataSizes.length; edge++) {
+            //file Size is in Bytes, acc in MB  换算单位，将bytes换算成为MB
+            double acc = dataSizes[edge] / Consts.MILLION;
+            // acc in MB, averageBandwidth in Mb/s
+            transferCosts[edge] = acc * 8 / averageBandwidth;    //使用 传输文件/平均带宽 计算文件传输成本
         }
     }
 
     /**
-     * Accounts the time in seconds necessary to transfer all files described
-     *      * between parent and child
-     *  计算父任务-子任务的传输成本
-     * @param parent  父任务
-     * @param child   子任务
-     * @return Transfer cost in seconds 父任务-子任务的传输成本
+     * Calculates the rank of each task as defined in the HEFT paper. The
+     * tasks are visited in reverse topological order so that the ranks of
+     * the children are known, no recursion is needed.
+     * 按逆拓扑顺序计算每个任务的排名
      */
-    private double calculateTransferCost(Task parent, Task child) {
-        List<FileItem> parentFiles = parent.getFileList();  //获取父任务的文件列表
-        List<FileItem> childFiles = child.getFileList();    //获取子任务的问件列表
+    private void calculateRanks() {
+        int taskNum = getTaskList().size();
+        rank = new double[taskNum];
 
-        double acc = 0.0;
+        int[] order = graph.getTopologicalOrder();
 
-        for (FileItem parentFile : parentFiles) {  //遍历父任务的文件列表
-            if (parentFile.getType() != Parameters.FileType.OUTPUT) {  //不是输出类型的文件 跳过
-                continue;
+        for (int i = taskNum - 1; i >= 0; i--) {
+            int task = order[i];
+            double averageComputationCost = 0.0;  // 平均计算成本
+            for (int vm = 0; vm < mips.length; vm++) {   //遍历该任务在所有虚拟机上的计算成本
+                averageComputationCost += getComputationCost(task, vm);
             }
+            averageComputationCost /= mips.length;  //该任务的 平均计算成本  = 该任务在所有虚拟机上的计算成本总和/虚拟机个数
 
-            for (FileItem childFile : childFiles) {  //遍历子任务的文件列表
-                if (childFile.getType() == Parameters.FileType.INPUT
-                        && childFile.getName().equals(parentFile.getName())) { //子任务的文件时输入类型，并且和父任务的文件名相同
-                    acc += childFile.getSize();  //累计计算 当前父任务到当前子任务 需要传输的所有文件大小
-                    break;
-                }
+            double max = 0.0;
+            for (int edge = childStart[task]; edge < childStart[task + 1]; edge++) {   //遍历当前任务的子任务列表
+                double childCost = transferCosts[edge] + rank[childIndex[edge]];  //子任务成本 = 当前任务的子任务传输成本 + 子任务的任务排名
+                max = Math.max(max, childCost);  //选出子任务成本的最高值
             }
+            rank[task] = averageComputationCost + max;
         }
-
-        //file Size is in Bytes, acc in MB  换算单位，将bytes换算成为MB
-        acc = acc / Consts.MILLION;
-        // acc in MB, averageBandwidth in Mb/s
-        return acc * 8 / averageBandwidth;    //使用 传输文件/平均带宽 计算文件传输成本
     }
 
     /**
-     * Invokes calculateRank for each task to be scheduled
-     * 为要调度的每个任务调用计算排名
+     * Allocates all tasks to be scheduled in non-ascending order of schedule.
+     * Tasks with the same rank keep the order of the task list.
      */
-    private void calculateRanks() {
-        for (Task task : getTaskList()) {
-            calculateRank(task);
+    private void allocateTasks() {
+        int taskNum = getTaskList().size();
+        Integer[] order = new Integer[taskNum];
+        for (int i = 0; i < taskNum; i++) {
+            order[i] = i;
+        }
+        // Sorting in non-ascending order of rank
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(rank[b], rank[a]);  //从大到小 排列
+            }
+        });
+
+        earliestFinishTimes = new double[taskNum];
+        allocation = new int[taskNum];
+        Arrays.fill(allocation, -1);
+        for (int task : order) {
+            allocateTask(task);
         }
     }
 
     /**
-     * Populates rank.get(task) with the rank of task as defined in the HEFT
-     * paper.
-     * 填充rank.get（task）和HEFT paper中定义的task的等级。
-     * @param task The task have the rank calculates
-     * @return The rank
+     * Schedules the task given in one of the VMs minimizing the earliest finish
+     * time. Ties are broken by the smaller vm id.
+     * 将其中一个vm中给定的任务安排为最小化最早完成时间
+     * @param task The index of the task to be scheduled
+     * @pre All parent tasks are already scheduled
      */
-    private double calculateRank(Task task) {  //计算任务排名
-        if (rank.containsKey(task)) {  //如果当前任务排名已经存在，直接返回排名
-            return rank.get(task);
+    private void allocateTask(final int task) {
+        int chosenVM;
+        if (executor == null) {
+            chosenVM = selectVm(task, 0, mips.length);
+        } else {
+            // Every thread scans a range of vms, the finish times are written
+            // to disjoint parts of finishTimes
+            int threads = Math.min(Parameters.getPlanningThreads(), mips.length);
+            int chunk = (mips.length + threads - 1) / threads;
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int from = 0; from < mips.length; from += chunk) {
+                final int start = from;
+                final int end = Math.min(from + chunk, mips.length);
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return selectVm(task, start, end);
+                    }
+                }));
+            }
+            chosenVM = -1;
+            try {
+                for (Future<Integer> result : results) {
+                    chosenVM = better(chosenVM, result.get());
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                Log.printLine("Error in evaluating the finish time of task " + task);
+                e.printStackTrace();
+                chosenVM = selectVm(task, 0, mips.length);
+            }
         }
 
-        double averageComputationCost = 0.0;  // 平均计算成本
-
-        for (Double cost : computationCosts.get(task).values()) {   //遍历该任务在所有虚拟机上的计算成本
-            averageComputationCost += cost;       // 该任务在所有虚拟机上的计算成本总和
-        }
+        double earliestFinishTime = finishTimes[chosenVM];
+        findFinishTime(task, chosenVM, getReadyTime(task, chosenVM), true);
+        earliestFinishTimes[task] = earliestFinishTime;
+        allocation[task] = chosenVM;
 
-        averageComputationCost /= computationCosts.get(task).size();  //该任务的 平均计算成本  = 该任务在所有虚拟机上的计算成本总和/虚拟机个数
+        CondorVM vm = (CondorVM) getVmList().get(chosenVM);
+        getTaskList().get(task).setVmId(vm.getId());
+    }
 
-        double max = 0.0;
-        for (Task child : task.getChildList()) {   //遍历当前任务的子任务列表
-            double childCost = transferCosts.get(task).get(child)
-                    + calculateRank(child);  //子任务成本 = 当前任务的子任务传输成本 + 子任务的任务排名
-            max = Math.max(max, childCost);  //选出子任务成本的最高值
+    /**
+     * Evaluates the finish time of a task on the vms [from, to) and stores it
+     * in finishTimes. It does not change any schedule.
+     *
+     * @param task The index of the task
+     * @param from the first vm index
+     * @param to the vm index after the last one
+     * @return the index of the vm with the earliest finish time
+     */
+    private int selectVm(int task, int from, int to) {
+        int chosenVM = -1;
+        for (int vm = from; vm < to; vm++) {
+            finishTimes[vm] = findFinishTime(task, vm, getReadyTime(task, vm), false);  //计算完成时间
+            chosenVM = better(chosenVM, vm);
         }
-
-        rank.put(task, averageComputationCost + max);  //父任务(排名) = 父任务的平均计算成本 + 子任务成本的最高值(父任务给子任务的传输成本 + 子任务的任务排名))
-
-        return rank.get(task);
+        return chosenVM;
     }
 
     /**
-     * Allocates all tasks to be scheduled in non-ascending order of schedule.
+     * Compares two vms by the finish time in finishTimes and then by vm id.
+     *
+     * @param a a vm index, -1 if none
+     * @param b a vm index
+     * @return the better vm index
      */
-    private void allocateTasks() {
-        List<TaskRank> taskRank = new ArrayList<>();
-        for (Task task : rank.keySet()) {
-            taskRank.add(new TaskRank(task, rank.get(task)));
+    private int better(int a, int b) {
+        if (a < 0) {
+            return b;
         }
-
-        // Sorting in non-ascending order of rank
-        Collections.sort(taskRank);  //根据排名降序排列
-        for (TaskRank rank : taskRank) {
-            allocateTask(rank.task);
+        if (finishTimes[b] < finishTimes[a]
+                || (finishTimes[b] == finishTimes[a] && vmIds[b] < vmIds[a])) {
+            return b;
         }
-
+        return a;
     }
 
     /**
-     * Schedules the task given in one of the VMs minimizing the earliest finish
-     * time
-     * 将其中一个vm中给定的任务安排为最小化最早完成时间
-     * @param task The task to be scheduled
-     * @pre All parent tasks are already scheduled
+     * Gets the time a task can start on a vm, that is when the output of all
+     * its parents is available there.
+     *
+     * @param task The index of the task
+     * @param vm The index of the vm
+     * @return the ready time
      */
-    private void allocateTask(Task task) {
-        CondorVM chosenVM = null;
-        double earliestFinishTime = Double.MAX_VALUE;  //将最早完成时间设为无穷大
-        double bestReadyTime = 0.0;
-        double finishTime;
-
-        for (Object vmObject : getVmList()) {
-            CondorVM vm = (CondorVM) vmObject;
-            double minReadyTime = 0.0;                //最小准备时间
-
-            for (Task parent : task.getParentList()) {
-                double readyTime = earliestFinishTimes.get(parent);           //子任务和父任务的虚拟机号时：子任务的准备时间 = 父任务的最小完成时间
-                if (parent.getVmId() != vm.getId()) {    //如果子任务和父任务的虚拟机号不同则 子任务的准备时间 = 父任务的最小完成时间 + 父任务到子任务的传输时间
-                    readyTime += transferCosts.get(parent).get(task);
-                }
-                minReadyTime = Math.max(minReadyTime, readyTime);//子任务的最小准备时间 = 子任务玩的准备时间的最大值
-            }
-
-            finishTime = findFinishTime(task, vm, minReadyTime, false);  //计算完成时间
-
-            if (finishTime < earliestFinishTime) {          //如果 任务在当前虚拟机上的完成时间 < 最早完成时间
-                bestReadyTime = minReadyTime;               //则最好准备时间 = 任务在当前虚拟机上的最小准备时间
-                earliestFinishTime = finishTime;            //最早完成时间 = 任务在当前虚拟机的完成时间
-                chosenVM = vm;                              //选择虚拟机 = 当前虚拟机
+    private double getReadyTime(int task, int vm) {
+        double minReadyTime = 0.0;                //最小准备时间
+        for (int pos = parentStart[task]; pos < parentStart[task + 1]; pos++) {
+            int parent = parentIndex[pos];
+            double readyTime = earliestFinishTimes[parent];           //子任务和父任务的虚拟机号时：子任务的准备时间 = 父任务的最小完成时间
+            if (allocation[parent] != vm) {    //如果子任务和父任务的虚拟机号不同则 子任务的准备时间 = 父任务的最小完成时间 + 父任务到子任务的传输时间
+                readyTime += transferCosts[parentEdge[pos]];
             }
+            minReadyTime = Math.max(minReadyTime, readyTime);//子任务的最小准备时间 = 子任务玩的准备时间的最大值
         }
-
-        findFinishTime(task, chosenVM, bestReadyTime, true);
-        earliestFinishTimes.put(task, earliestFinishTime);
-
-        task.setVmId(chosenVM.getId());
+        return minReadyTime;
     }
 
     /**
@@ -302,84 +389,21 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * readyTime. If occupySlot is true, reserves the time slot in the schedule.
      * 查找可用的最佳时隙，以最小化vm中给定任务的完成时间，并限制在重新分析之前不调度该任务。
      * 如果occupySlot为true，则在计划中保留时间段。
-     * @param task The task to have the time slot reserved
-     * @param vm The vm that will execute the task
+     * @param task The index of the task to have the time slot reserved
+     * @param vm The index of the vm that will execute the task
      * @param readyTime The first moment that the task is available to be
      * scheduled
      * @param occupySlot If true, reserves the time slot in the schedule.
      * @return The minimal finish time of the task in the vmn
      */
-    private double findFinishTime(Task task, CondorVM vm, double readyTime,
+    private double findFinishTime(int task, int vm, double readyTime,
                                   boolean occupySlot) {
-        List<Event> sched = schedules.get(vm);
-        double computationCost = computationCosts.get(task).get(vm);  //获取此任务在此虚拟机上的计算成本（花费时间）
-        double start, finish;
-        int pos;
-
-        if (sched.isEmpty()) {
-            if (occupySlot) {
-                sched.add(new Event(readyTime, readyTime + computationCost));
-            }
-            return readyTime + computationCost;
-        }
-
-        if (sched.size() == 1) {
-            if (readyTime >= sched.get(0).finish) {
-                pos = 1;
-                start = readyTime;
-            } else if (readyTime + computationCost <= sched.get(0).start) {
-                pos = 0;
-                start = readyTime;
-            } else {
-                pos = 1;
-                start = sched.get(0).finish;
-            }
-
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
-            }
-            return start + computationCost;
-        }
-
-        // Trivial case: Start after the latest task scheduled
-        start = Math.max(readyTime, sched.get(sched.size() - 1).finish);
-        finish = start + computationCost;
-        int i = sched.size() - 1;
-        int j = sched.size() - 2;
-        pos = i + 1;
-        while (j >= 0) {
-            Event current = sched.get(i);
-            Event previous = sched.get(j);
-
-            if (readyTime > previous.finish) {
-                if (readyTime + computationCost <= current.start) {
-                    start = readyTime;
-                    finish = readyTime + computationCost;
-                }
-
-                break;
-            }
-            if (previous.finish + computationCost <= current.start) {
-                start = previous.finish;
-                finish = previous.finish + computationCost;
-                pos = i;
-            }
-            i--;
-            j--;
-        }
-
-        if (readyTime + computationCost <= sched.get(0).start) {
-            pos = 0;
-            start = readyTime;
-
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
-            }
-            return start + computationCost;
-        }
+        GapIndex gaps = schedules[vm];
+        double computationCost = getComputationCost(task, vm);  //获取此任务在此虚拟机上的计算成本（花费时间）
+        double start = gaps.findStart(readyTime, computationCost);
         if (occupySlot) {
-            sched.add(pos, new Event(start, finish));
+            gaps.occupy(start, computationCost);
         }
-        return finish;
+        return start + computationCost;
     }
 }
@@ -0,0 +1,365 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Task;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * The PEFT (Predict Earliest Finish Time) planning algorithm. See H. Arabnejad
+ * and J. G. Barbosa, List Scheduling Algorithm for Heterogeneous Systems by an
+ * Optimistic Cost Table, IEEE TPDS 2014.
+ *
+ * The Optimistic Cost Table OCT(t, p) is the longest remaining path from task
+ * t to an exit task if t runs on vm p and every later task runs on its best
+ * vm. Tasks are prioritized by their average OCT and each task goes to the vm
+ * with the smallest EFT(t, p) + OCT(t, p), so that the planner looks ahead at
+ * the cost of the children.
+ *
+ * The table is a flat double[] (task-major) built level by level from the exit
+ * tasks, the tasks of a level are independent and computed with a fork-join
+ * pool of Parameters.getPlanningThreads() threads. Using
+ * min_w (OCT(c, w) + w(c, w) + c(t, c) if w != p) =
+ * min(OCT(c, p) + w(c, p), min_w (OCT(c, w) + w(c, w)) + c(t, c)) the table is
+ * built in O(E * M) instead of O(E * M * M).
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class PEFTPlanningAlgorithm extends BasePlanningAlgorithm {
+
+    /**
+     * The number of tasks of a level below which the OCT rows are computed
+     * without forking.
+     */
+    private static final int THRESHOLD = 64;
+    private double[] lengths;
+    private int[] taskPes;
+    private double[] mips;
+    private int[] vmPes;
+    /**
+     * The children of task i are childIndex[childStart[i] ..
+     * childStart[i + 1] - 1], the transfer cost of the edge is in
+     * transferCosts at the same position.
+     */
+    private int[] childStart;
+    private int[] childIndex;
+    private double[] transferCosts;
+    /**
+     * The parents of task i are parentIndex[parentStart[i] ..
+     * parentStart[i + 1] - 1], parentEdge is the position of the edge in
+     * childIndex/transferCosts.
+     */
+    private int[] parentStart;
+    private int[] parentIndex;
+    private int[] parentEdge;
+    private TaskGraph graph;
+    /**
+     * OCT(t, p) is oct[t * vmNum + p].
+     */
+    private double[] oct;
+    /**
+     * min_w (OCT(t, w) + w(t, w)) of each task.
+     */
+    private double[] minCost;
+    private double[] rank;
+    private double[] earliestFinishTimes;
+    private int[] allocation;
+    private GapIndex[] schedules;
+    private double averageBandwidth;
+
+    public PEFTPlanningAlgorithm() {
+    }
+
+    /**
+     * The main function
+     */
+    @Override
+    public void run() {
+        Log.printLine("PEFT planner running with " + getTaskList().size()
+                + " tasks.");
+
+        int vmNum = getVmList().size();
+        averageBandwidth = calculateAverageBandwidth();
+        schedules = new GapIndex[vmNum];
+        for (int i = 0; i < vmNum; i++) {
+            schedules[i] = new GapIndex();
+        }
+
+        calculateComputationCosts();
+        calculateTransferCosts();
+        calculateOptimisticCosts();
+        allocateTasks();
+    }
+
+    /**
+     * Calculates the average available bandwidth among all VMs in Mbit/s
+     *
+     * @return Average available bandwidth in Mbit/s
+     */
+    private double calculateAverageBandwidth() {
+        double avg = 0.0;
+        for (Object vmObject : getVmList()) {
+            CondorVM vm = (CondorVM) vmObject;
+            avg += vm.getBw();
+        }
+        return avg / getVmList().size();
+    }
+
+    /**
+     * Collects the task lengths and vm mips the computation costs are computed
+     * from.
+     */
+    private void calculateComputationCosts() {
+        List<Task> taskList = getTaskList();
+        lengths = new double[taskList.size()];
+        taskPes = new int[taskList.size()];
+        for (int i = 0; i < taskList.size(); i++) {
+            Task task = taskList.get(i);
+            lengths[i] = task.getCloudletTotalLength();
+            taskPes[i] = task.getNumberOfPes();
+        }
+        int vmNum = getVmList().size();
+        mips = new double[vmNum];
+        vmPes = new int[vmNum];
+        for (int i = 0; i < vmNum; i++) {
+            CondorVM vm = (CondorVM) getVmList().get(i);
+            mips[i] = vm.getMips();
+            vmPes[i] = vm.getNumberOfPes();
+        }
+    }
+
+    /**
+     * Gets the time in seconds to compute a task in a vm.
+     *
+     * @param task the task index
+     * @param vm the vm index
+     * @return the computation cost
+     */
+    private double getComputationCost(int task, int vm) {
+        if (vmPes[vm] < taskPes[task]) {
+            return Double.MAX_VALUE;
+        }
+        return lengths[task] / mips[vm];
+    }
+
+    /**
+     * Builds the parent and child arrays and the time in seconds to transfer
+     * all files from each parent to each child.
+     */
+    private void calculateTransferCosts() {
+        graph = new TaskGraph(getTaskList());
+        childStart = graph.getChildStart();
+        childIndex = graph.getChildIndex();
+        parentStart = graph.getParentStart();
+        parentIndex = graph.getParentIndex();
+        parentEdge = graph.getParentEdge();
+        double[] dataSizes = graph.getDataSizes();
+        transferCosts = new double[dataSizes.length];
+        for (int edge = 0; edge < dataSizes.length; edge++) {
+            //file Size is in Bytes, acc in MB
+            double acc = dataSizes[edge] / Consts.MILLION;
+            // acc in MB, averageBandwidth in Mb/s
+            transferCosts[edge] = acc * 8 / averageBandwidth;
+        }
+    }
+
+    /**
+     * Builds the Optimistic Cost Table and the rank (average OCT) of each
+     * task. Level l holds the tasks whose longest path to an exit task has l
+     * edges, so all the children of a task are in lower levels.
+     */
+    private void calculateOptimisticCosts() {
+        int taskNum = lengths.length;
+        int vmNum = mips.length;
+        oct = new double[taskNum * vmNum];
+        minCost = new double[taskNum];
+        rank = new double[taskNum];
+
+        // Levels in reverse topological order
+        int[] order = graph.getTopologicalOrder();
+        int[] level = new int[taskNum];
+        int maxLevel = 0;
+        for (int i = taskNum - 1; i >= 0; i--) {
+            int task = order[i];
+            for (int edge = childStart[task]; edge < childStart[task + 1]; edge++) {
+                level[task] = Math.max(level[task], level[childIndex[edge]] + 1);
+            }
+            maxLevel = Math.max(maxLevel, level[task]);
+        }
+
+        // Counting sort by level
+        int[] levelStart = new int[maxLevel + 2];
+        for (int i = 0; i < taskNum; i++) {
+            levelStart[level[i] + 1]++;
+        }
+        for (int l = 0; l <= maxLevel; l++) {
+            levelStart[l + 1] += levelStart[l];
+        }
+        int[] levelTasks = new int[taskNum];
+        int[] filled = new int[maxLevel + 1];
+        for (int i = 0; i < taskNum; i++) {
+            levelTasks[levelStart[level[i]] + filled[level[i]]++] = i;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Parameters.getPlanningThreads());
+        try {
+            for (int l = 0; l <= maxLevel; l++) {
+                pool.invoke(new LevelTask(levelTasks, levelStart[l], levelStart[l + 1]));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Computes the OCT rows of a range of tasks of one level.
+     */
+    private class LevelTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final int[] tasks;
+        private final int from;
+        private final int to;
+
+        LevelTask(int[] tasks, int from, int to) {
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    calculateOptimisticCost(tasks[i]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new LevelTask(tasks, from, mid), new LevelTask(tasks, mid, to));
+        }
+    }
+
+    /**
+     * Fills the OCT row of a task, the rows of its children must be ready.
+     *
+     * @param task the task index
+     */
+    private void calculateOptimisticCost(int task) {
+        int vmNum = mips.length;
+        int row = task * vmNum;
+        for (int edge = childStart[task]; edge < childStart[task + 1]; edge++) {
+            int child = childIndex[edge];
+            int childRow = child * vmNum;
+            double other = minCost[child] + transferCosts[edge];
+            for (int p = 0; p < vmNum; p++) {
+                double cost = Math.min(oct[childRow + p] + getComputationCost(child, p), other);
+                if (cost > oct[row + p]) {
+                    oct[row + p] = cost;
+                }
+            }
+        }
+        double min = Double.MAX_VALUE;
+        double sum = 0.0;
+        for (int p = 0; p < vmNum; p++) {
+            sum += oct[row + p];
+            min = Math.min(min, oct[row + p] + getComputationCost(task, p));
+        }
+        minCost[task] = min;
+        rank[task] = sum / vmNum;
+    }
+
+    /**
+     * Schedules the ready task with the largest rank first, ties are broken
+     * by the order of the task list.
+     */
+    private void allocateTasks() {
+        int taskNum = lengths.length;
+        earliestFinishTimes = new double[taskNum];
+        allocation = new int[taskNum];
+        int[] pending = new int[taskNum];
+        PriorityQueue<Integer> readyList = new PriorityQueue<>(Math.max(1, taskNum),
+                new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer a, Integer b) {
+                        int c = Double.compare(rank[b], rank[a]);
+                        return c != 0 ? c : Integer.compare(a, b);
+                    }
+                });
+        for (int i = 0; i < taskNum; i++) {
+            pending[i] = parentStart[i + 1] - parentStart[i];
+            if (pending[i] == 0) {
+                readyList.add(i);
+            }
+        }
+        while (!readyList.isEmpty()) {
+            int task = readyList.poll();
+            allocateTask(task);
+            for (int edge = childStart[task]; edge < childStart[task + 1]; edge++) {
+                if (--pending[childIndex[edge]] == 0) {
+                    readyList.add(childIndex[edge]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedules a task on the vm with the smallest EFT + OCT. Ties are broken
+     * by the vm list order.
+     *
+     * @param task the task index
+     */
+    private void allocateTask(int task) {
+        int vmNum = mips.length;
+        int chosenVM = 0;
+        double chosenStart = 0.0;
+        double bestCost = Double.MAX_VALUE;
+        for (int vm = 0; vm < vmNum; vm++) {
+            double readyTime = 0.0;
+            for (int pos = parentStart[task]; pos < parentStart[task + 1]; pos++) {
+                int parent = parentIndex[pos];
+                double time = earliestFinishTimes[parent];
+                if (allocation[parent] != vm) {
+                    time += transferCosts[parentEdge[pos]];
+                }
+                readyTime = Math.max(readyTime, time);
+            }
+            double computationCost = getComputationCost(task, vm);
+            double start = schedules[vm].findStart(readyTime, computationCost);
+            double cost = start + computationCost + oct[task * vmNum + vm];
+            if (cost < bestCost) {
+                bestCost = cost;
+                chosenVM = vm;
+                chosenStart = start;
+            }
+        }
+        double computationCost = getComputationCost(task, chosenVM);
+        schedules[chosenVM].occupy(chosenStart, computationCost);
+        earliestFinishTimes[task] = chosenStart + computationCost;
+        allocation[task] = chosenVM;
+
+        CondorVM vm = (CondorVM) getVmList().get(chosenVM);
+        getTaskList().get(task).setVmId(vm.getId());
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.FileItem;
+import org.workflowsim.Task;
+
+/**
+ * PlanCache stores the task-to-vm assignment of a planner so that a workflow
+ * planned once with the same vms is not planned again. The key is a SHA-256
+ * hash of the workflow (task lengths and pes, edges, file names, sizes and
+ * types), of the vms (id, mips, bandwidth, pes) and of the planner name, the
+ * value is the vm id of each task in task list order.
+ *
+ * Plans are kept in an in-memory LRU of a given capacity and, if a directory
+ * is given, in one file per key so that they survive the JVM. The cache is
+ * disabled until init is called.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class PlanCache {
+
+    /**
+     * The in-memory plans, least recently used first.
+     */
+    private static Map<String, int[]> plans;
+    /**
+     * The directory of the plan files, null if plans are not stored on disk.
+     */
+    private static File directory;
+
+    /**
+     * Initialize a PlanCache
+     *
+     * @param capacity the number of plans kept in memory
+     * @param dir the directory of the plan files, null to keep them only in
+     * memory
+     */
+    public static void init(final int capacity, String dir) {
+        plans = new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+                return size() > capacity;
+            }
+        };
+        directory = null;
+        if (dir != null) {
+            directory = new File(dir);
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                Log.printLine("Cannot create the plan cache directory " + dir);
+                directory = null;
+            }
+        }
+    }
+
+    /**
+     * Disables the cache
+     */
+    public static void clear() {
+        plans = null;
+        directory = null;
+    }
+
+    /**
+     * Checks whether the cache is enabled
+     *
+     * @return whether init has been called
+     */
+    public static boolean isEnabled() {
+        return plans != null;
+    }
+
+    /**
+     * Gets the key of a workflow planned by a planner on a list of vms
+     *
+     * @param planner the planner name (and its settings)
+     * @param taskList the tasks
+     * @param vmList the vms
+     * @return the key
+     */
+    public static String getKey(String planner, List<Task> taskList, List<? extends Vm> vmList) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(planner);
+            out.writeInt(vmList.size());
+            for (Vm vm : vmList) {
+                out.writeInt(vm.getId());
+                out.writeDouble(vm.getMips());
+                out.writeLong(vm.getBw());
+                out.writeInt(vm.getNumberOfPes());
+            }
+            out.writeInt(taskList.size());
+            for (Task task : taskList) {
+                out.writeInt(task.getCloudletId());
+                out.writeLong(task.getCloudletLength());
+                out.writeInt(task.getNumberOfPes());
+                out.writeInt(task.getChildList().size());
+                for (Task child : task.getChildList()) {
+                    out.writeInt(child.getCloudletId());
+                }
+                out.writeInt(task.getFileList().size());
+                for (FileItem file : task.getFileList()) {
+                    out.writeUTF(file.getName());
+                    out.writeDouble(file.getSize());
+                    out.writeInt(file.getType().value);
+                }
+            }
+            out.flush();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest(bytes.toByteArray())) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            Log.printLine("Error in hashing the workflow");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Gets a plan, from memory first and then from disk
+     *
+     * @param key the key
+     * @param taskNum the number of tasks of the workflow
+     * @return the vm id of each task, null if the plan is not cached
+     */
+    public static int[] get(String key, int taskNum) {
+        if (plans == null || key == null) {
+            return null;
+        }
+        int[] plan;
+        synchronized (plans) {
+            plan = plans.get(key);
+        }
+        if (plan == null && directory != null) {
+            plan = read(new File(directory, key + ".plan"));
+            if (plan != null) {
+                synchronized (plans) {
+                    plans.put(key, plan);
+                }
+            }
+        }
+        if (plan != null && plan.length != taskNum) {
+            return null;
+        }
+        return plan;
+    }
+
+    /**
+     * Stores a plan in memory and on disk
+     *
+     * @param key the key
+     * @param plan the vm id of each task
+     */
+    public static void put(String key, int[] plan) {
+        if (plans == null || key == null) {
+            return;
+        }
+        synchronized (plans) {
+            plans.put(key, plan);
+        }
+        if (directory != null) {
+            write(new File(directory, key + ".plan"), plan);
+        }
+    }
+
+    private static int[] read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            int[] plan = new int[Integer.parseInt(reader.readLine().trim())];
+            for (int i = 0; i < plan.length; i++) {
+                plan[i] = Integer.parseInt(reader.readLine().trim());
+            }
+            return plan;
+        } catch (IOException | RuntimeException e) {
+            Log.printLine("Error in reading the plan " + file.getPath());
+            return null;
+        }
+    }
+
+    /**
+     * Writes to a temporary file first so that a concurrent run never reads a
+     * partial plan.
+     */
+    private static void write(File file, int[] plan) {
+        File tmp = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmp))) {
+            writer.write(Integer.toString(plan.length));
+            writer.newLine();
+            for (int vmId : plan) {
+                writer.write(Integer.toString(vmId));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            Log.printLine("Error in writing the plan " + file.getPath());
+            e.printStackTrace();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.util.Random;
 import org.workflowsim.CondorVM;
 import org.workflowsim.Task;
 import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.RandomService;
 
 /**
  * The Random planning algorithm. This is just for demo. It is not useful in practice.
@@ -36,7 +37,7 @@ public class RandomPlanningAlgorithm extends BasePlanningAlgorithm {
     @Override
     public void run() {
 
-        Random random = new Random(System.currentTimeMillis());
+        Random random = RandomService.getRandom("planning.random");
         for (Iterator it = getTaskList().iterator(); it.hasNext();) {
             Task task = (Task) it.next();
             double duration = task.getCloudletLength() / 1000;
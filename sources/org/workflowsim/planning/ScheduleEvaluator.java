@@ -0,0 +1,228 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.Task;
+
+/**
+ * ScheduleEvaluator estimates the makespan of a task-to-vm assignment without
+ * running the simulation. Each task is released when the output of its
+ * parents has arrived and each vm runs its tasks in release order, ties
+ * follow the upward rank (as in HEFT). Transfer costs use the average
+ * bandwidth and are only paid between different vms.
+ *
+ * The workflow is converted once to index arrays, an evaluation is
+ * O((V + E) log V) and does not change any shared state, so several threads
+ * can evaluate assignments at the same time.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ScheduleEvaluator {
+
+    private final double[] lengths;
+    private final int[] taskPes;
+    private final double[] mips;
+    private final int[] vmPes;
+    /**
+     * The number of parents of task i is parentStart[i + 1] - parentStart[i].
+     */
+    private final int[] parentStart;
+    /**
+     * The children of task i are childIndex[childStart[i] ..
+     * childStart[i + 1] - 1], childCost is the transfer time of the edge.
+     */
+    private final int[] childStart;
+    private final int[] childIndex;
+    private final double[] childCost;
+    /**
+     * The position of each task in the priority order (upward rank).
+     */
+    private final int[] priority;
+
+    /**
+     * Initialize a ScheduleEvaluator
+     *
+     * @param taskList the tasks
+     * @param vmList the vms
+     */
+    public ScheduleEvaluator(List<Task> taskList, List<? extends Vm> vmList) {
+        int taskNum = taskList.size();
+        int vmNum = vmList.size();
+        this.lengths = new double[taskNum];
+        this.taskPes = new int[taskNum];
+        this.mips = new double[vmNum];
+        this.vmPes = new int[vmNum];
+        double averageBandwidth = 0.0;
+        for (int i = 0; i < vmNum; i++) {
+            Vm vm = vmList.get(i);
+            this.mips[i] = vm.getMips();
+            this.vmPes[i] = vm.getNumberOfPes();
+            averageBandwidth += vm.getBw();
+        }
+        averageBandwidth /= vmNum;
+
+        for (int i = 0; i < taskNum; i++) {
+            Task task = taskList.get(i);
+            this.lengths[i] = task.getCloudletTotalLength();
+            this.taskPes[i] = task.getNumberOfPes();
+        }
+        TaskGraph graph = new TaskGraph(taskList);
+        this.parentStart = graph.getParentStart();
+        this.childStart = graph.getChildStart();
+        this.childIndex = graph.getChildIndex();
+        double[] dataSizes = graph.getDataSizes();
+        this.childCost = new double[dataSizes.length];
+        for (int edge = 0; edge < dataSizes.length; edge++) {
+            this.childCost[edge] = dataSizes[edge] / Consts.MILLION * 8 / averageBandwidth;
+        }
+
+        /**
+         * Upward ranks in reverse topological order.
+         */
+        int[] order = graph.getTopologicalOrder();
+        final double[] rank = new double[taskNum];
+        for (int i = taskNum - 1; i >= 0; i--) {
+            int task = order[i];
+            double avg = 0.0;
+            for (int vm = 0; vm < vmNum; vm++) {
+                avg += getComputationCost(task, vm);
+            }
+            avg /= vmNum;
+            double max = 0.0;
+            for (int edge = childStart[task]; edge < childStart[task + 1]; edge++) {
+                max = Math.max(max, childCost[edge] + rank[childIndex[edge]]);
+            }
+            rank[task] = avg + max;
+        }
+
+        /**
+         * The ready task with the largest rank goes first.
+         */
+        this.priority = new int[taskNum];
+        int[] pending = new int[taskNum];
+        PriorityQueue<Integer> ready = new PriorityQueue<>(Math.max(1, taskNum),
+                new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer a, Integer b) {
+                        int c = Double.compare(rank[b], rank[a]);
+                        return c != 0 ? c : Integer.compare(a, b);
+                    }
+                });
+        for (int i = 0; i < taskNum; i++) {
+            pending[i] = this.parentStart[i + 1] - this.parentStart[i];
+            if (pending[i] == 0) {
+                ready.add(i);
+            }
+        }
+        int count = 0;
+        while (!ready.isEmpty()) {
+            int task = ready.poll();
+            this.priority[task] = count++;
+            for (int edge = childStart[task]; edge < childStart[task + 1]; edge++) {
+                if (--pending[childIndex[edge]] == 0) {
+                    ready.add(childIndex[edge]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the time to compute a task in a vm
+     *
+     * @param task the task index
+     * @param vm the vm index
+     * @return the computation cost
+     */
+    public double getComputationCost(int task, int vm) {
+        if (this.vmPes[vm] < this.taskPes[task]) {
+            return Double.MAX_VALUE;
+        }
+        return this.lengths[task] / this.mips[vm];
+    }
+
+    /**
+     * Gets the number of tasks
+     *
+     * @return the number of tasks
+     */
+    public int getTaskNum() {
+        return this.lengths.length;
+    }
+
+    /**
+     * Gets the number of vms
+     *
+     * @return the number of vms
+     */
+    public int getVmNum() {
+        return this.mips.length;
+    }
+
+    /**
+     * Estimates the makespan of an assignment. A task is released when the
+     * output of all its parents has arrived at its vm and each vm runs the
+     * tasks in the order they are released (as the static scheduler does);
+     * tasks released at the same time follow the priority order.
+     *
+     * @param assignment the vm index of each task (index in the task list)
+     * @return the makespan
+     */
+    public double evaluate(final int[] assignment) {
+        int taskNum = this.lengths.length;
+        final double[] ready = new double[taskNum];
+        double[] available = new double[this.mips.length];
+        int[] pending = new int[taskNum];
+        PriorityQueue<Integer> released = new PriorityQueue<>(Math.max(1, taskNum),
+                new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer a, Integer b) {
+                        int c = Double.compare(ready[a], ready[b]);
+                        return c != 0 ? c : Integer.compare(priority[a], priority[b]);
+                    }
+                });
+        for (int task = 0; task < taskNum; task++) {
+            pending[task] = this.parentStart[task + 1] - this.parentStart[task];
+            if (pending[task] == 0) {
+                released.add(task);
+            }
+        }
+        double makespan = 0.0;
+        while (!released.isEmpty()) {
+            int task = released.poll();
+            int vm = assignment[task];
+            double finish = Math.max(ready[task], available[vm]) + getComputationCost(task, vm);
+            available[vm] = finish;
+            makespan = Math.max(makespan, finish);
+            for (int edge = this.childStart[task]; edge < this.childStart[task + 1]; edge++) {
+                int child = this.childIndex[edge];
+                double arrival = finish;
+                if (assignment[child] != vm) {
+                    arrival += this.childCost[edge];
+                }
+                ready[child] = Math.max(ready[child], arrival);
+                if (--pending[child] == 0) {
+                    released.add(child);
+                }
+            }
+        }
+        return makespan;
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.workflowsim.FileItem;
+import org.workflowsim.Task;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * TaskGraph is the index form of a workflow the planners work on. Tasks are
+ * addressed by their index in the task list and the edges are stored along
+ * the child lists (CSR) together with the bytes sent along each of them, so
+ * the memory is O(V + E). Parents and children that are not in the task list
+ * are ignored.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class TaskGraph {
+
+    /**
+     * The children of task i are childIndex[childStart[i] ..
+     * childStart[i + 1] - 1], the bytes sent along the edge are in dataSizes
+     * at the same position.
+     */
+    private final int[] childStart;
+    private final int[] childIndex;
+    private final double[] dataSizes;
+    /**
+     * The parents of task i are parentIndex[parentStart[i] ..
+     * parentStart[i + 1] - 1], parentEdge is the position of the edge in
+     * childIndex/dataSizes.
+     */
+    private final int[] parentStart;
+    private final int[] parentIndex;
+    private final int[] parentEdge;
+
+    /**
+     * Initialize a TaskGraph
+     *
+     * @param taskList the tasks
+     */
+    public TaskGraph(List<Task> taskList) {
+        int taskNum = taskList.size();
+        Map<Task, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < taskNum; i++) {
+            index.put(taskList.get(i), i);
+        }
+
+        this.childStart = new int[taskNum + 1];
+        this.parentStart = new int[taskNum + 1];
+        for (int i = 0; i < taskNum; i++) {
+            for (Task child : taskList.get(i).getChildList()) {
+                Integer c = index.get(child);
+                if (c != null) {
+                    this.childStart[i + 1]++;
+                    this.parentStart[c + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < taskNum; i++) {
+            this.childStart[i + 1] += this.childStart[i];
+            this.parentStart[i + 1] += this.parentStart[i];
+        }
+        this.childIndex = new int[this.childStart[taskNum]];
+        this.dataSizes = new double[this.childStart[taskNum]];
+        this.parentIndex = new int[this.parentStart[taskNum]];
+        this.parentEdge = new int[this.parentStart[taskNum]];
+        int[] parentFilled = new int[taskNum];
+        for (int i = 0; i < taskNum; i++) {
+            Task parent = taskList.get(i);
+            int edge = this.childStart[i];
+            for (Task child : parent.getChildList()) {
+                Integer c = index.get(child);
+                if (c == null) {
+                    continue;
+                }
+                this.childIndex[edge] = c;
+                this.dataSizes[edge] = getDataSize(parent, child);
+                int pos = this.parentStart[c] + parentFilled[c]++;
+                this.parentIndex[pos] = i;
+                this.parentEdge[pos] = edge;
+                edge++;
+            }
+        }
+    }
+
+    /**
+     * Gets the size of the files sent from parent to child in bytes
+     */
+    private static double getDataSize(Task parent, Task child) {
+        double acc = 0.0;
+        for (FileItem parentFile : parent.getFileList()) {
+            if (parentFile.getType() != Parameters.FileType.OUTPUT) {
+                continue;
+            }
+            for (FileItem childFile : child.getFileList()) {
+                if (childFile.getType() == Parameters.FileType.INPUT
+                        && childFile.getName().equals(parentFile.getName())) {
+                    acc += childFile.getSize();
+                    break;
+                }
+            }
+        }
+        return acc;
+    }
+
+    /**
+     * Gets the tasks in topological order (Kahn), tasks without a parent
+     * first in task list order
+     *
+     * @return the task indexes
+     * @throws IllegalArgumentException if the workflow is not a DAG
+     */
+    public int[] getTopologicalOrder() {
+        int taskNum = this.childStart.length - 1;
+        int[] order = new int[taskNum];
+        int[] inDegree = new int[taskNum];
+        int tail = 0;
+        for (int i = 0; i < taskNum; i++) {
+            inDegree[i] = this.parentStart[i + 1] - this.parentStart[i];
+            if (inDegree[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int task = order[head];
+            for (int edge = this.childStart[task]; edge < this.childStart[task + 1]; edge++) {
+                if (--inDegree[this.childIndex[edge]] == 0) {
+                    order[tail++] = this.childIndex[edge];
+                }
+            }
+        }
+        if (tail < taskNum) {
+            throw new IllegalArgumentException("The workflow is not a DAG");
+        }
+        return order;
+    }
+
+    /**
+     * Gets the first child edge of each task, the last entry is the number of
+     * edges
+     *
+     * @return the child offsets
+     */
+    public int[] getChildStart() {
+        return this.childStart;
+    }
+
+    /**
+     * Gets the child of each edge
+     *
+     * @return the child indexes
+     */
+    public int[] getChildIndex() {
+        return this.childIndex;
+    }
+
+    /**
+     * Gets the bytes sent along each edge
+     *
+     * @return the data sizes
+     */
+    public double[] getDataSizes() {
+        return this.dataSizes;
+    }
+
+    /**
+     * Gets the first parent of each task, the last entry is the number of
+     * edges
+     *
+     * @return the parent offsets
+     */
+    public int[] getParentStart() {
+        return this.parentStart;
+    }
+
+    /**
+     * Gets the parents of the tasks
+     *
+     * @return the parent indexes
+     */
+    public int[] getParentIndex() {
+        return this.parentIndex;
+    }
+
+    /**
+     * Gets the position in the child arrays of the edge of each parent
+     *
+     * @return the edge positions
+     */
+    public int[] getParentEdge() {
+        return this.parentEdge;
+    }
+}
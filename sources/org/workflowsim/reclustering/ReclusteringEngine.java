@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
+import org.workflowsim.FileItem;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
 import org.workflowsim.failure.FailureMonitor;
@@ -58,6 +59,7 @@ public class ReclusteringEngine {
 
             newJob.setTaskList(taskList);
             newJob.setDepth(job.getDepth());
+            newJob.setClassType(job.getClassType());
             if (updateDep) {
                 newJob.setChildList(job.getChildList());
                 newJob.setParentList(job.getParentList());
@@ -126,12 +128,34 @@ public class ReclusteringEngine {
                 default:
                     break;
             }
+            /**
+             * A retry job stages in and registers the files of its tasks as
+             * the failed job did.
+             */
+            for (Object retry : jobList) {
+                addFiles((Job) retry);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
         return jobList;
     }
 
+    /**
+     * Adds the files of the tasks of a job to the job
+     *
+     * @param job, the job
+     */
+    private static void addFiles(Job job) {
+        for (Task task : job.getTaskList()) {
+            for (FileItem file : task.getFileList()) {
+                if (!job.getFileList().contains(file)) {
+                    job.getFileList().add(file);
+                }
+            }
+        }
+    }
+
     /**
      * Partition the list of tasks based on their depth
      *
@@ -39,7 +39,7 @@ public class ClusteringParameters {
      */
     public enum ClusteringMethod {
 
-        HORIZONTAL, VERTICAL, NONE, BLOCK, BALANCED
+        HORIZONTAL, VERTICAL, NONE, BLOCK, BALANCED, ONLINE, AUTO
     }
     /**
      * Used for balanced clustering to tell which specific balanced clustering
@@ -23,6 +23,7 @@ import org.apache.commons.math3.distribution.LogNormalDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.distribution.RealDistribution;
 import org.apache.commons.math3.distribution.WeibullDistribution;
+import org.apache.commons.math3.random.RandomGenerator;
 
 /**
  * This is a OverheadDistributionGenrator for one typic overhead per level.
@@ -39,9 +40,28 @@ public class DistributionGenerator {
     protected double scale_prior;
     protected double shape_prior;
     protected double likelihood_prior;
-    protected double[] samples;
-    protected double[] cumulativeSamples;
+    /**
+     * The samples are stored in chunks of SAMPLE_SIZE that are only appended,
+     * cumulativeChunks holds the running prefix sums of the samples.
+     */
+    protected double[][] sampleChunks;
+    protected double[][] cumulativeChunks;
+    /**
+     * The number of samples.
+     */
+    protected int sampleNum;
     protected int cursor;
+    /**
+     * The number of times the samples have been replaced, so that a reader of
+     * a chunk knows when it is stale.
+     */
+    protected int version;
+    /**
+     * The random stream of this generator (see RandomService). The samples are
+     * only drawn when they are first read, so a stream set before that is the
+     * only one used.
+     */
+    protected RandomGenerator random;
     protected final int SAMPLE_SIZE = 1500 ; //DistributionGenerator will automatically increase the size
     
 
@@ -62,10 +82,6 @@ public class DistributionGenerator {
         this.shape = shape;
         this.scale_prior = scale;
         this.shape_prior = shape;
-        RealDistribution distribution = getDistribution(scale, shape);
-        samples = distribution.sample(SAMPLE_SIZE);
-        updateCumulativeSamples();
-        cursor = 0;
     }
 
     public DistributionGenerator(DistributionFamily dist, double scale, double shape, double a, double b, double c) {
@@ -76,41 +92,186 @@ public class DistributionGenerator {
     }
 
     /**
-     * Gets the sample data
+     * Sets the random stream, the samples are drawn again from it
+     *
+     * @param rng the random stream, see RandomService
+     */
+    public void setRandomGenerator(RandomGenerator rng) {
+        this.random = rng;
+        sampleChunks = null;
+        cumulativeChunks = null;
+        sampleNum = 0;
+        version++;
+        cursor = 0;
+    }
+
+    /**
+     * Draws the first chunk of samples if it has not been drawn yet. Without a
+     * stream set, the generator takes the next counter-numbered one of
+     * RandomService.
+     */
+    protected void initSamples() {
+        if (sampleChunks == null) {
+            if (random == null) {
+                random = RandomService.getNextDistributionGenerator();
+            }
+            resetSamples(createSamples(0.0));
+            cursor = 0;
+        }
+    }
+
+    /**
+     * Draws a chunk of samples
+     *
+     * @param currentTime the sum of the samples before this chunk
+     * @return SAMPLE_SIZE samples
+     */
+    protected double[] createSamples(double currentTime) {
+        return getDistribution(scale, shape).sample(SAMPLE_SIZE);
+    }
+
+    /**
+     * Gets the sample data. This copies all the samples, use getSample
+     * instead.
      *
      * @return samples
      */
     public double[] getSamples() {
+        initSamples();
+        double[] samples = new double[sampleNum];
+        for (int i = 0; i < sampleNum; i += SAMPLE_SIZE) {
+            System.arraycopy(sampleChunks[i / SAMPLE_SIZE], 0, samples, i,
+                    Math.min(SAMPLE_SIZE, sampleNum - i));
+        }
         return samples;
     }
 
     /**
-     * Gets the cumulative Samples
+     * Gets the cumulative Samples. This copies all the samples, use
+     * getCumulativeSample or findCumulativeSample instead.
      *
      * @return cumulativeSamples
      */
     public double[] getCumulativeSamples() {
+        initSamples();
+        double[] cumulativeSamples = new double[sampleNum];
+        for (int i = 0; i < sampleNum; i += SAMPLE_SIZE) {
+            System.arraycopy(cumulativeChunks[i / SAMPLE_SIZE], 0, cumulativeSamples, i,
+                    Math.min(SAMPLE_SIZE, sampleNum - i));
+        }
         return cumulativeSamples;
     }
 
+    /**
+     * Gets the number of samples
+     *
+     * @return the number of samples
+     */
+    public int getSampleNum() {
+        initSamples();
+        return sampleNum;
+    }
+
+    /**
+     * Gets a sample
+     *
+     * @param index the index of the sample
+     * @return the sample
+     */
+    public double getSample(int index) {
+        initSamples();
+        return sampleChunks[index / SAMPLE_SIZE][index % SAMPLE_SIZE];
+    }
+
+    /**
+     * Gets the sum of the samples up to an index (included)
+     *
+     * @param index the index of the sample
+     * @return the cumulative sample
+     */
+    public double getCumulativeSample(int index) {
+        initSamples();
+        return cumulativeChunks[index / SAMPLE_SIZE][index % SAMPLE_SIZE];
+    }
+
+    /**
+     * Gets the sum of all the samples
+     *
+     * @return the last cumulative sample
+     */
+    public double getLastCumulativeSample() {
+        initSamples();
+        return getCumulativeSample(sampleNum - 1);
+    }
+
+    /**
+     * Finds the first cumulative sample not smaller than a value with a binary
+     * search.
+     *
+     * @param value the value
+     * @return the index of the cumulative sample, getSampleNum() if all of
+     * them are smaller
+     */
+    public int findCumulativeSample(double value) {
+        initSamples();
+        int low = 0;
+        int high = sampleNum;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getCumulativeSample(mid) < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     /**
      * Extends the sample size
      */
     public void extendSamples() {
-        double[] new_samples = getDistribution(scale, shape).sample(SAMPLE_SIZE);
-        samples = concat(samples, new_samples);
-        updateCumulativeSamples();
+        initSamples();
+        appendSamples(getDistribution(scale, shape).sample(SAMPLE_SIZE));
     }
 
     /**
-     * Update cumulativeSamples from samples
+     * Replaces all the samples
+     *
+     * @param samples the new samples, SAMPLE_SIZE of them
      */
-    public void updateCumulativeSamples() {
-        cumulativeSamples = new double[samples.length];
-        cumulativeSamples[0] = samples[0];
-        for (int i = 1; i < samples.length; i++) {
-            cumulativeSamples[i] = cumulativeSamples[i - 1] + samples[i];
+    protected void resetSamples(double[] samples) {
+        sampleChunks = new double[4][];
+        cumulativeChunks = new double[4][];
+        sampleNum = 0;
+        version++;
+        appendSamples(samples);
+    }
+
+    /**
+     * Appends a chunk of samples and its running prefix sums. The existing
+     * samples are not copied.
+     *
+     * @param samples the new samples, SAMPLE_SIZE of them
+     */
+    protected void appendSamples(double[] samples) {
+        if (samples.length != SAMPLE_SIZE) {
+            throw new IllegalArgumentException("A chunk must have " + SAMPLE_SIZE + " samples");
         }
+        int chunk = sampleNum / SAMPLE_SIZE;
+        if (chunk == sampleChunks.length) {
+            sampleChunks = Arrays.copyOf(sampleChunks, chunk * 2);
+            cumulativeChunks = Arrays.copyOf(cumulativeChunks, chunk * 2);
+        }
+        double[] cumulative = new double[samples.length];
+        double sum = sampleNum > 0 ? getLastCumulativeSample() : 0.0;
+        for (int i = 0; i < samples.length; i++) {
+            sum += samples[i];
+            cumulative[i] = sum;
+        }
+        sampleChunks[chunk] = samples;
+        cumulativeChunks[chunk] = cumulative;
+        sampleNum += samples.length;
     }
 
     /**
@@ -128,11 +289,10 @@ public class DistributionGenerator {
      * @return average
      */
     public double getMean() {
-        double sum = 0.0;
-        for (int i = 0; i < cursor; i++) {
-            sum += samples[i];
+        if (cursor == 0) {
+            return Double.NaN;
         }
-        return sum / cursor;
+        return getCumulativeSample(cursor - 1) / cursor;
     }
 
     /**
@@ -156,10 +316,10 @@ public class DistributionGenerator {
         for (int i = 0; i < cursor; i++) {
             switch (dist) {
                 case GAMMA:
-                    sum += samples[i];
+                    sum += getSample(i);
                     break;
                 case WEIBULL:
-                    sum += Math.pow(samples[i], likelihood_prior);
+                    sum += Math.pow(getSample(i), likelihood_prior);
                     break;
             }
         }
@@ -186,9 +346,10 @@ public class DistributionGenerator {
     public void varyDistribution(double scale, double shape) {
         this.scale = scale;
         this.shape = shape;
-        RealDistribution distribution = getDistribution(scale, shape);
-        samples = distribution.sample(SAMPLE_SIZE);
-        updateCumulativeSamples();
+        if (sampleChunks != null) {
+            RealDistribution distribution = getDistribution(scale, shape);
+            resetSamples(distribution.sample(SAMPLE_SIZE));
+        }
         //cursor = 0;
     }
 
@@ -205,18 +366,31 @@ public class DistributionGenerator {
         return result;
     }
 
+    /**
+     * Gets the chunk that holds the next sample, drawing it if needed. The
+     * next sample is at cursor % SAMPLE_SIZE of it.
+     *
+     * @return the chunk
+     */
+    double[] getNextChunk() {
+        initSamples();
+        while (cursor >= sampleNum) {
+            extendSamples();
+        }
+        return sampleChunks[cursor / SAMPLE_SIZE];
+    }
+
     /**
      * Gets the next sample from samples
      *
      * @return delay
      */
     public double getNextSample() {
-        while (cursor >= samples.length) {
-            double[] new_samples = getDistribution(scale, shape).sample(SAMPLE_SIZE);
-            samples = concat(samples, new_samples);
-            updateCumulativeSamples();
+        initSamples();
+        while (cursor >= sampleNum) {
+            extendSamples();
         }
-        double delay = samples[cursor];
+        double delay = getSample(cursor);
         cursor++;
         return delay;
     }
@@ -232,17 +406,21 @@ public class DistributionGenerator {
         RealDistribution distribution = null;
         switch (this.dist) {
             case LOGNORMAL:
-                distribution = new LogNormalDistribution(scale, shape);
+                distribution = new LogNormalDistribution(random, scale, shape,
+                        LogNormalDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
                 break;
             case WEIBULL:
-                distribution = new WeibullDistribution(shape, scale);
+                distribution = new WeibullDistribution(random, shape, scale,
+                        WeibullDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
                 break;
             case GAMMA:
-                distribution = new GammaDistribution(shape, scale);
+                distribution = new GammaDistribution(random, shape, scale,
+                        GammaDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
                 break;
             case NORMAL:
                 //shape is the std, scale is the mean
-                distribution = new NormalDistribution(scale, shape);
+                distribution = new NormalDistribution(random, scale, shape,
+                        NormalDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
                 break;
             default:
                 break;
@@ -0,0 +1,236 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.utils;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.Job;
+import org.workflowsim.Task;
+
+/**
+ * ExecutionTrace replays the measured runtimes and delays of an execution log
+ * instead of drawing them from distributions. Each line of a trace file is a
+ * record of one task:
+ *
+ * name type runtime queue_delay post_delay
+ *
+ * separated by spaces, tabs or commas, in seconds. Lines that start with # are
+ * comments. The name is the id of the task in the DAX file (e.g. ID00000).
+ * WorkflowParser binds each task to the record of its name, or if there is
+ * none, to the next record of its type in turn. A task without a record keeps
+ * its DAX runtime and the delays of OverheadParameters.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ExecutionTrace {
+
+    /**
+     * The runtime of each record
+     */
+    private double[] runtimes;
+    /**
+     * The queue delay of each record
+     */
+    private double[] queueDelays;
+    /**
+     * The postscript delay of each record
+     */
+    private double[] postDelays;
+    /**
+     * The number of records
+     */
+    private int size;
+    /**
+     * Map from task name to record
+     */
+    private final Map<String, Integer> name2Record;
+    /**
+     * Map from task type to its records
+     */
+    private final Map<String, TypeRecords> type2Records;
+    /**
+     * The record of each task indexed by task id, -1 means none
+     */
+    private int[] task2Record;
+
+    /**
+     * The records of a task type, handed out in turn
+     */
+    private static final class TypeRecords {
+
+        private int[] records = new int[8];
+        private int size;
+        private int next;
+
+        void add(int record) {
+            if (this.size == this.records.length) {
+                this.records = Arrays.copyOf(this.records, this.size * 2);
+            }
+            this.records[this.size++] = record;
+        }
+
+        int next() {
+            int record = this.records[this.next];
+            this.next = (this.next + 1) % this.size;
+            return record;
+        }
+    }
+
+    /**
+     * Loads a trace file
+     *
+     * @param path the path of the trace file
+     */
+    public ExecutionTrace(String path) {
+        this.runtimes = new double[1024];
+        this.queueDelays = new double[1024];
+        this.postDelays = new double[1024];
+        this.size = 0;
+        this.name2Record = new HashMap<>();
+        this.type2Records = new HashMap<>();
+        this.task2Record = new int[0];
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            int lineNum = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("[\\s,]+");
+                if (fields.length < 5) {
+                    Log.printLine("Line " + lineNum + " of " + path + " has less than 5 columns, ignored");
+                    continue;
+                }
+                try {
+                    add(fields[0], fields[1], Double.parseDouble(fields[2]),
+                            Double.parseDouble(fields[3]), Double.parseDouble(fields[4]));
+                } catch (NumberFormatException e) {
+                    Log.printLine("Line " + lineNum + " of " + path + " is not valid, ignored");
+                }
+            }
+        } catch (IOException e) {
+            Log.printLine("IO Exception;Please make sure the trace file " + path + " exists");
+        }
+    }
+
+    /**
+     * Adds a record
+     */
+    private void add(String name, String type, double runtime, double queueDelay, double postDelay) {
+        if (this.size == this.runtimes.length) {
+            int capacity = this.size * 2;
+            this.runtimes = Arrays.copyOf(this.runtimes, capacity);
+            this.queueDelays = Arrays.copyOf(this.queueDelays, capacity);
+            this.postDelays = Arrays.copyOf(this.postDelays, capacity);
+        }
+        int record = this.size++;
+        this.runtimes[record] = runtime;
+        this.queueDelays[record] = queueDelay;
+        this.postDelays[record] = postDelay;
+        this.name2Record.put(name, record);
+        TypeRecords records = this.type2Records.get(type);
+        if (records == null) {
+            records = new TypeRecords();
+            this.type2Records.put(type, records);
+        }
+        records.add(record);
+    }
+
+    /**
+     * Gets the number of records
+     *
+     * @return the number of records
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Binds a task to the record of its name, or to the next record of its
+     * type
+     *
+     * @param task the task, its id and type must be set
+     * @param name the name of the task
+     * @return the runtime of the record, NaN if there is no record for it
+     */
+    public double bind(Task task, String name) {
+        Integer record = this.name2Record.get(name);
+        if (record == null) {
+            TypeRecords records = this.type2Records.get(task.getType());
+            if (records == null) {
+                return Double.NaN;
+            }
+            record = records.next();
+        }
+        int id = task.getCloudletId();
+        if (id >= this.task2Record.length) {
+            int length = Math.max(id + 1, this.task2Record.length * 2);
+            int from = this.task2Record.length;
+            this.task2Record = Arrays.copyOf(this.task2Record, length);
+            Arrays.fill(this.task2Record, from, length, -1);
+        }
+        this.task2Record[id] = record;
+        return this.runtimes[record];
+    }
+
+    /**
+     * Gets the record of the first task of a job that has one
+     *
+     * @param job the job
+     * @return the record, -1 if none
+     */
+    private int getRecord(Job job) {
+        List<Task> taskList = job.getTaskList();
+        for (int i = 0; i < taskList.size(); i++) {
+            int id = taskList.get(i).getCloudletId();
+            if (id >= 0 && id < this.task2Record.length && this.task2Record[id] >= 0) {
+                return this.task2Record[id];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the measured queue delay of a job
+     *
+     * @param job the job
+     * @return the delay of its first task that has a record, NaN if none
+     */
+    public double getQueueDelay(Job job) {
+        int record = getRecord(job);
+        return record < 0 ? Double.NaN : this.queueDelays[record];
+    }
+
+    /**
+     * Gets the measured postscript delay of a job
+     *
+     * @param job the job
+     * @return the delay of its first task that has a record, NaN if none
+     */
+    public double getPostDelay(Job job) {
+        int record = getRecord(job);
+        return record < 0 ? Double.NaN : this.postDelays[record];
+    }
+}
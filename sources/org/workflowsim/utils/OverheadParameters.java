@@ -15,6 +15,7 @@
  */
 package org.workflowsim.utils;
 
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import org.cloudbus.cloudsim.Cloudlet;
@@ -54,6 +55,13 @@ public class OverheadParameters {
      * The list of clustering delay key = level value = delay
      */
     private final Map<Integer, DistributionGenerator> CLUST_DELAY;
+    /**
+     * The primed samples of each delay, indexed by depth
+     */
+    private final DepthSamples wedSamples;
+    private final DepthSamples queueSamples;
+    private final DepthSamples postSamples;
+    private final DepthSamples clustSamples;
 
     /**
      * Created a new OverheadParameters object.
@@ -79,7 +87,134 @@ public class OverheadParameters {
         this.POST_DELAY = post_delay;
         this.CLUST_DELAY = cluster_delay;
         this.bandwidth = bandwidth;
+        setRandomGenerators("overhead.wed", wed_delay);
+        setRandomGenerators("overhead.queue", queue_delay);
+        setRandomGenerators("overhead.post", post_delay);
+        setRandomGenerators("overhead.clust", cluster_delay);
+        this.wedSamples = DepthSamples.create(wed_delay);
+        this.queueSamples = DepthSamples.create(queue_delay);
+        this.postSamples = DepthSamples.create(post_delay);
+        this.clustSamples = DepthSamples.create(cluster_delay);
+    }
+
+    /**
+     * The samples of a generator, read straight from its current chunk. A
+     * sample costs an array index and a cursor bump; the chunk is only looked
+     * up again when it runs out or the generator is used elsewhere.
+     */
+    private static final class SampleBuffer {
+
+        private final DistributionGenerator generator;
+        private double[] chunk;
+        private int next;
+        private int cursor;
+        private int version;
+
+        SampleBuffer(DistributionGenerator generator) {
+            this.generator = generator;
+            prime();
+        }
+
+        /**
+         * Points this buffer at the chunk that holds the next sample of the
+         * generator
+         */
+        private void prime() {
+            this.chunk = this.generator.getNextChunk();
+            this.cursor = this.generator.cursor;
+            this.next = this.cursor % this.chunk.length;
+            this.version = this.generator.version;
+        }
+
+        double getNextSample() {
+            if (this.next == this.chunk.length || this.cursor != this.generator.cursor
+                    || this.version != this.generator.version) {
+                prime();
+            }
+            //the generator keeps counting the samples used, see getMLEMean()
+            this.generator.cursor = ++this.cursor;
+            return this.chunk[this.next++];
+        }
+    }
+
+    /**
+     * The sample buffers of a delay indexed by depth. A depth without a
+     * generator of its own uses the one of depth 0, if any.
+     */
+    private static final class DepthSamples {
+
+        private final SampleBuffer[] buffers;
+        private final SampleBuffer defaultBuffer;
+
+        private DepthSamples(SampleBuffer[] buffers, SampleBuffer defaultBuffer) {
+            this.buffers = buffers;
+            this.defaultBuffer = defaultBuffer;
+        }
+
+        /**
+         * Primes the buffers of the generators of a delay. A generator shared
+         * by several depths gets a single buffer.
+         *
+         * @param map the generators per depth
+         * @return the buffers, null if map is null
+         */
+        static DepthSamples create(Map<Integer, DistributionGenerator> map) {
+            if (map == null) {
+                return null;
+            }
+            int maxDepth = 0;
+            for (Integer depth : map.keySet()) {
+                maxDepth = Math.max(maxDepth, depth);
+            }
+            Map<DistributionGenerator, SampleBuffer> generator2Buffer = new IdentityHashMap<>();
+            SampleBuffer[] buffers = new SampleBuffer[maxDepth + 1];
+            for (Map.Entry<Integer, DistributionGenerator> entry : map.entrySet()) {
+                DistributionGenerator generator = entry.getValue();
+                if (entry.getKey() < 0 || generator == null) {
+                    continue;
+                }
+                SampleBuffer buffer = generator2Buffer.get(generator);
+                if (buffer == null) {
+                    buffer = new SampleBuffer(generator);
+                    generator2Buffer.put(generator, buffer);
+                }
+                buffers[entry.getKey()] = buffer;
+            }
+            SampleBuffer defaultBuffer = buffers[0];
+            for (int depth = 0; depth <= maxDepth; depth++) {
+                if (buffers[depth] == null) {
+                    buffers[depth] = defaultBuffer;
+                }
+            }
+            return new DepthSamples(buffers, defaultBuffer);
+        }
 
+        /**
+         * Gets the next sample for a depth
+         *
+         * @param depth the depth
+         * @return the sample, 0 if there is no generator for this depth
+         */
+        double getNextSample(int depth) {
+            SampleBuffer buffer = depth >= 0 && depth < this.buffers.length
+                    ? this.buffers[depth] : this.defaultBuffer;
+            return buffer == null ? 0.0 : buffer.getNextSample();
+        }
+    }
+
+    /**
+     * Gives each overhead generator its own random stream per depth
+     *
+     * @param name the name of the overhead
+     * @param map the generators per depth
+     */
+    private static void setRandomGenerators(String name, Map<Integer, DistributionGenerator> map) {
+        if (map == null) {
+            return;
+        }
+        for (Map.Entry<Integer, DistributionGenerator> entry : map.entrySet()) {
+            entry.getValue().setRandomGenerator(RandomService.getGenerator(name, entry.getKey()));
+        }
     }
 
     /**
@@ -158,21 +293,12 @@ public class OverheadParameters {
      */
     public double getClustDelay(Cloudlet cl) {
         double delay = 0.0;
-        if(this.CLUST_DELAY == null){
+        if(this.clustSamples == null){
             return delay;
         }
         if (cl != null) {
             Job job = (Job) cl;
-
-            if (this.CLUST_DELAY.containsKey(job.getDepth())) {
-                delay = this.CLUST_DELAY.get(job.getDepth()).getNextSample();
-            } else if (this.CLUST_DELAY.containsKey(0)) {
-                delay = this.CLUST_DELAY.get(0).getNextSample();
-            } else {
-                delay = 0.0;
-            }
-
-
+            delay = this.clustSamples.getNextSample(job.getDepth());
         } else {
             Log.printLine("Not yet supported");
         }
@@ -180,7 +306,8 @@ public class OverheadParameters {
     }
 
     /**
-     * Gets the queue delay for a particular job based on the depth(level)
+     * Gets the queue delay for a particular job based on the depth(level),
+     * or the measured one if an execution trace is replayed
      *
      * @param cl, the job
      * @return the queue delay
@@ -190,21 +317,20 @@ public class OverheadParameters {
     public double getQueueDelay(Cloudlet cl) {
         double delay = 0.0;
 
-        if(this.QUEUE_DELAY == null){
+        ExecutionTrace trace = Parameters.getExecutionTrace();
+        if (trace != null && cl != null) {
+            double measured = trace.getQueueDelay((Job) cl);
+            if (!Double.isNaN(measured)) {
+                return measured;
+            }
+        }
+
+        if(this.queueSamples == null){
             return delay;
         }
         if (cl != null) {
             Job job = (Job) cl;
-
-            if (this.QUEUE_DELAY.containsKey(job.getDepth())) {
-                delay = this.QUEUE_DELAY.get(job.getDepth()).getNextSample();
-            } else if (this.QUEUE_DELAY.containsKey(0)) {
-                delay = this.QUEUE_DELAY.get(0).getNextSample();
-            } else {
-                delay = 0.0;
-            }
-
-
+            delay = this.queueSamples.getNextSample(job.getDepth());
         } else {
             Log.printLine("Not yet supported");
         }
@@ -212,7 +338,8 @@ public class OverheadParameters {
     }
 
     /**
-     * Gets the postscript delay for a particular job based on the depth(level)
+     * Gets the postscript delay for a particular job based on the
+     * depth(level), or the measured one if an execution trace is replayed
      *
      * @param job
      * @return the postscript delay
@@ -222,20 +349,19 @@ public class OverheadParameters {
     public double getPostDelay(Job job) {
         double delay = 0.0;
 
-        if(this.POST_DELAY == null){
+        ExecutionTrace trace = Parameters.getExecutionTrace();
+        if (trace != null && job != null) {
+            double measured = trace.getPostDelay(job);
+            if (!Double.isNaN(measured)) {
+                return measured;
+            }
+        }
+
+        if(this.postSamples == null){
             return delay;
         }
         if (job != null) {
-
-            if (this.POST_DELAY.containsKey(job.getDepth())) {
-                delay = this.POST_DELAY.get(job.getDepth()).getNextSample();
-            } else if (this.POST_DELAY.containsKey(0)) {
-                //the default one
-                delay = this.POST_DELAY.get(0).getNextSample();
-            } else {
-                delay = 0.0;
-            }
-
+            delay = this.postSamples.getNextSample(job.getDepth());
         } else {
             Log.printLine("Not yet supported");
         }
@@ -254,19 +380,12 @@ public class OverheadParameters {
     public double getWEDDelay(List list) {
         double delay = 0.0;
 
-        if(this.WED_DELAY == null){
+        if(this.wedSamples == null){
             return delay;
         }
         if (!list.isEmpty()) {
             Job job = (Job) list.get(0);
-            if (this.WED_DELAY.containsKey(job.getDepth())) {
-                delay = this.WED_DELAY.get(job.getDepth()).getNextSample();
-            } else if (this.WED_DELAY.containsKey(0)) {
-                delay = this.WED_DELAY.get(0).getNextSample();
-            } else {
-                delay = 0.0;
-            }
-
+            delay = this.wedSamples.getNextSample(job.getDepth());
         } else {
             //actuall set it to be 0.0;
             //Log.printLine("Not yet supported");
@@ -44,7 +44,7 @@ public class Parameters {
      * 
      */
     public enum PlanningAlgorithm{
-        INVALID, RANDOM, HEFT, DHEFT
+        INVALID, RANDOM, HEFT, DHEFT, PEFT, GENETIC, DEADLINE
     }
     
     /**
@@ -175,6 +175,37 @@ public class Parameters {
      */
     private static CostModel costModel = CostModel.DATACENTER;
     
+    /**
+     * The number of threads a planner may use, 1 means sequential
+     */
+    private static int planningThreads = 1;
+    
+    /**
+     * The population size of the genetic planner
+     */
+    private static int populationSize = 50;
+    
+    /**
+     * The number of generations of the genetic planner
+     */
+    private static int generations = 100;
+    
+    /**
+     * The wall-clock time the genetic planner may take (ms), 0 means no limit
+     */
+    private static long planningBudget = 0;
+    
+    /**
+     * The quantile of the runtimes of its task types a job may run before a
+     * backup copy of it is launched, 0 means no speculative execution
+     */
+    private static double speculationQuantile = 0.0;
+    
+    /**
+     * The execution trace to replay, null means no replay
+     */
+    private static ExecutionTrace executionTrace = null;
+    
     /**
      * A static function so that you can specify them in any place
      *
@@ -414,6 +445,97 @@ public class Parameters {
         costModel = model;
     }
     
+    /**
+     * Sets the number of threads a planner may use
+     * @param threads 
+     */
+    public static void setPlanningThreads(int threads){
+        planningThreads = Math.max(1, threads);
+    }
+    
+    /**
+     * Gets the number of threads a planner may use
+     * @return 
+     */
+    public static int getPlanningThreads(){
+        return planningThreads;
+    }
+    
+    /**
+     * Sets the parameters of the genetic planner
+     * @param size the population size
+     * @param num the number of generations
+     * @param budget the wall-clock time it may take (ms), 0 means no limit
+     */
+    public static void setGeneticParameters(int size, int num, long budget){
+        populationSize = Math.max(2, size);
+        generations = Math.max(0, num);
+        planningBudget = Math.max(0, budget);
+    }
+    
+    /**
+     * Gets the population size of the genetic planner
+     * @return 
+     */
+    public static int getPopulationSize(){
+        return populationSize;
+    }
+    
+    /**
+     * Gets the number of generations of the genetic planner
+     * @return 
+     */
+    public static int getGenerations(){
+        return generations;
+    }
+    
+    /**
+     * Gets the wall-clock time the genetic planner may take (ms)
+     * @return 
+     */
+    public static long getPlanningBudget(){
+        return planningBudget;
+    }
+    
+    /**
+     * Sets the quantile of speculative execution. A job that has run longer
+     * than this quantile of the runtimes of its task types gets a backup copy
+     * on an idle vm
+     * @param quantile 0 < quantile < 1, 0 means no speculative execution
+     */
+    public static void setSpeculationQuantile(double quantile){
+        if (quantile < 0.0 || quantile >= 1.0) {
+            throw new IllegalArgumentException("The speculation quantile must be in [0, 1)");
+        }
+        speculationQuantile = quantile;
+    }
+    
+    /**
+     * Gets the quantile of speculative execution
+     * @return 0 means no speculative execution
+     */
+    public static double getSpeculationQuantile(){
+        return speculationQuantile;
+    }
+    
+    /**
+     * Sets the execution trace to replay. WorkflowParser takes the runtimes
+     * of the tasks from it and OverheadParameters their queue and postscript
+     * delays. It must be set before the workflow is parsed
+     * @param trace the trace, null means no replay
+     */
+    public static void setExecutionTrace(ExecutionTrace trace){
+        executionTrace = trace;
+    }
+    
+    /**
+     * Gets the execution trace to replay
+     * @return null means no replay
+     */
+    public static ExecutionTrace getExecutionTrace(){
+        return executionTrace;
+    }
+    
     /**
      * Gets the runtime scale
      * @return 
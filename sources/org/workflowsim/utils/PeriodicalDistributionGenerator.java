@@ -43,13 +43,6 @@ public class PeriodicalDistributionGenerator extends DistributionGenerator{
     public PeriodicalDistributionGenerator(DistributionFamily dist, double scale, double shape, PeriodicalSignal signal){
         super(dist, scale, shape);
         this.signal = signal;
-        //generate samples periodically
-        double currentTime = 0.0;
-        samples = generatePeriodicalSamples(currentTime);
-                
-        updateCumulativeSamples();
-        cursor = 0;
-       
     }
     
     /**
@@ -66,22 +59,27 @@ public class PeriodicalDistributionGenerator extends DistributionGenerator{
     public PeriodicalDistributionGenerator(DistributionFamily dist, double scale, double shape, double a, double b, double c, PeriodicalSignal signal){
         super(dist, scale, shape, a, b, c);
         this.signal = signal;
-        double currentTime = 0.0;
-        samples = generatePeriodicalSamples(currentTime);
-        updateCumulativeSamples();
-        cursor = 0;
     }
     /**
      * Extends the sample size
      */
     @Override
     public void extendSamples() {
-        double currentTime = cumulativeSamples[cumulativeSamples.length - 1];
-        double[] new_samples = generatePeriodicalSamples(currentTime);
-        samples = concat(samples, new_samples);
-        updateCumulativeSamples();
+        double currentTime = getLastCumulativeSample();
+        appendSamples(generatePeriodicalSamples(currentTime));
     }
     
+    /**
+     * Draws a chunk of periodical samples
+     *
+     * @param currentTime the sum of the samples before this chunk
+     * @return samples
+     */
+    @Override
+    protected double[] createSamples(double currentTime) {
+        return generatePeriodicalSamples(currentTime);
+    }
+
     /**
      * Generates a periodical sample
      * @return samples
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.utils;
+
+/**
+ * QuantileEstimator estimates a quantile of a stream of samples online with
+ * the P-square algorithm (Jain and Chlamtac). It keeps five markers instead of
+ * the samples, so adding a sample and reading the estimate take constant time
+ * and space.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class QuantileEstimator {
+
+    /**
+     * The number of markers
+     */
+    private static final int MARKERS = 5;
+    /**
+     * The quantile (0 < quantile < 1)
+     */
+    private final double quantile;
+    /**
+     * The heights of the markers
+     */
+    private final double[] heights;
+    /**
+     * The positions of the markers (1-based)
+     */
+    private final int[] positions;
+    /**
+     * The desired positions of the markers
+     */
+    private final double[] desired;
+    /**
+     * The increments of the desired positions
+     */
+    private final double[] increments;
+    /**
+     * The number of samples so far
+     */
+    private int count;
+
+    /**
+     * Initialize a QuantileEstimator
+     *
+     * @param quantile the quantile to estimate, 0 < quantile < 1
+     */
+    public QuantileEstimator(double quantile) {
+        if (quantile <= 0.0 || quantile >= 1.0) {
+            throw new IllegalArgumentException("The quantile must be in (0, 1)");
+        }
+        this.quantile = quantile;
+        this.heights = new double[MARKERS];
+        this.positions = new int[]{1, 2, 3, 4, 5};
+        this.desired = new double[]{1, 1 + 2 * quantile, 1 + 4 * quantile, 3 + 2 * quantile, 5};
+        this.increments = new double[]{0, quantile / 2, quantile, (1 + quantile) / 2, 1};
+        this.count = 0;
+    }
+
+    /**
+     * Adds a sample
+     *
+     * @param x the sample
+     */
+    public void add(double x) {
+        if (this.count < MARKERS) {
+            // insertion sort of the first samples
+            int i = this.count++;
+            while (i > 0 && this.heights[i - 1] > x) {
+                this.heights[i] = this.heights[i - 1];
+                i--;
+            }
+            this.heights[i] = x;
+            return;
+        }
+        this.count++;
+        int k;
+        if (x < this.heights[0]) {
+            this.heights[0] = x;
+            k = 0;
+        } else if (x >= this.heights[MARKERS - 1]) {
+            this.heights[MARKERS - 1] = x;
+            k = MARKERS - 2;
+        } else {
+            k = 0;
+            while (x >= this.heights[k + 1]) {
+                k++;
+            }
+        }
+        for (int i = k + 1; i < MARKERS; i++) {
+            this.positions[i]++;
+        }
+        for (int i = 0; i < MARKERS; i++) {
+            this.desired[i] += this.increments[i];
+        }
+        // adjust the heights of the middle markers
+        for (int i = 1; i < MARKERS - 1; i++) {
+            double d = this.desired[i] - this.positions[i];
+            if ((d >= 1 && this.positions[i + 1] - this.positions[i] > 1)
+                    || (d <= -1 && this.positions[i - 1] - this.positions[i] < -1)) {
+                int sign = d > 0 ? 1 : -1;
+                double h = parabolic(i, sign);
+                if (this.heights[i - 1] < h && h < this.heights[i + 1]) {
+                    this.heights[i] = h;
+                } else {
+                    this.heights[i] = linear(i, sign);
+                }
+                this.positions[i] += sign;
+            }
+        }
+    }
+
+    /**
+     * The piecewise parabolic prediction of a marker height
+     */
+    private double parabolic(int i, int sign) {
+        double n0 = this.positions[i - 1];
+        double n1 = this.positions[i];
+        double n2 = this.positions[i + 1];
+        return this.heights[i] + sign / (n2 - n0)
+                * ((n1 - n0 + sign) * (this.heights[i + 1] - this.heights[i]) / (n2 - n1)
+                + (n2 - n1 - sign) * (this.heights[i] - this.heights[i - 1]) / (n1 - n0));
+    }
+
+    /**
+     * The linear prediction of a marker height
+     */
+    private double linear(int i, int sign) {
+        return this.heights[i] + sign * (this.heights[i + sign] - this.heights[i])
+                / (this.positions[i + sign] - this.positions[i]);
+    }
+
+    /**
+     * Gets the number of samples so far
+     *
+     * @return the number of samples
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets the estimate of the quantile
+     *
+     * @return the estimate, NaN if there are not enough samples yet
+     */
+    public double getQuantile() {
+        if (this.count < MARKERS) {
+            return Double.NaN;
+        }
+        return this.heights[2];
+    }
+
+    /**
+     * Gets the quantile this estimator estimates
+     *
+     * @return the quantile
+     */
+    public double getTarget() {
+        return this.quantile;
+    }
+}
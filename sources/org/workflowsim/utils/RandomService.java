@@ -0,0 +1,163 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.utils;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.math3.random.AbstractRandomGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+
+/**
+ * RandomService is the source of all the random numbers of a simulation. Every
+ * stochastic component takes its own stream, named by the component and
+ * optional keys such as the vm index or the depth. A stream only depends on
+ * the master seed and its name, not on the order in which streams are taken
+ * or used, so a run is reproducible from the master seed even if parts of it
+ * run in parallel.
+ *
+ * Without init the master seed is taken from the clock; it can be read with
+ * getMasterSeed to repeat a run.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class RandomService {
+
+    private static long masterSeed = System.currentTimeMillis();
+    /**
+     * Numbers the streams of DistributionGenerators that are not given one.
+     */
+    private static final AtomicInteger generatorCount = new AtomicInteger();
+
+    /**
+     * Initialize the RandomService
+     *
+     * @param seed the master seed
+     */
+    public static void init(long seed) {
+        masterSeed = seed;
+        generatorCount.set(0);
+    }
+
+    /**
+     * Gets the master seed
+     *
+     * @return the master seed
+     */
+    public static long getMasterSeed() {
+        return masterSeed;
+    }
+
+    /**
+     * Gets a stream
+     *
+     * @param component the name of the component
+     * @param keys the keys of the stream within the component (vm, depth...)
+     * @return a new SplittableRandom, two calls with the same name give the
+     * same numbers
+     */
+    public static SplittableRandom getStream(String component, int... keys) {
+        long seed = mix(masterSeed ^ component.hashCode());
+        for (int key : keys) {
+            seed = mix(seed + key);
+        }
+        return new SplittableRandom(seed);
+    }
+
+    /**
+     * Gets a stream as a java.util.Random (for Collections.shuffle and alike)
+     *
+     * @param component the name of the component
+     * @param keys the keys of the stream within the component
+     * @return the stream
+     */
+    public static Random getRandom(String component, int... keys) {
+        return new Random(getStream(component, keys).nextLong());
+    }
+
+    /**
+     * Gets a stream as a commons-math RandomGenerator (for distributions)
+     *
+     * @param component the name of the component
+     * @param keys the keys of the stream within the component
+     * @return the stream
+     */
+    public static RandomGenerator getGenerator(String component, int... keys) {
+        return new SplittableRandomGenerator(getStream(component, keys));
+    }
+
+    /**
+     * Gets the next stream of DistributionGenerators, numbered in the order
+     * they first draw samples without a stream of their own.
+     *
+     * @return the stream
+     */
+    static RandomGenerator getNextDistributionGenerator() {
+        return getGenerator("distribution", generatorCount.getAndIncrement());
+    }
+
+    /**
+     * The finalizer of SplitMix64
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A commons-math RandomGenerator backed by a SplittableRandom
+     */
+    private static class SplittableRandomGenerator extends AbstractRandomGenerator {
+
+        private SplittableRandom random;
+
+        SplittableRandomGenerator(SplittableRandom random) {
+            this.random = random;
+        }
+
+        @Override
+        public void setSeed(long seed) {
+            this.random = new SplittableRandom(seed);
+            clear();
+        }
+
+        @Override
+        public double nextDouble() {
+            return this.random.nextDouble();
+        }
+
+        @Override
+        public int nextInt() {
+            return this.random.nextInt();
+        }
+
+        @Override
+        public int nextInt(int n) {
+            return this.random.nextInt(n);
+        }
+
+        @Override
+        public long nextLong() {
+            return this.random.nextLong();
+        }
+
+        @Override
+        public boolean nextBoolean() {
+            return this.random.nextBoolean();
+        }
+    }
+}